@@ -0,0 +1,29 @@
+#!/bin/bash
+set -euo pipefail
+
+# Benchmark the central-directory JAR reader against java.util.jar.JarFile
+#
+# Usage:
+#   ./scripts/benchmark-jar-reader.sh [dir-or-jar ...] [--iterations N]
+#
+# Defaults to target/libs and the local Maven repository when no paths are given.
+
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PROJECT_DIR="$(dirname "$SCRIPT_DIR")"
+
+cd "$PROJECT_DIR"
+
+# Find the built JAR
+JAR_FILE=$(ls -1 target/*.jar 2>/dev/null | grep -v sources | grep -v javadoc | head -n1)
+
+if [[ -z "$JAR_FILE" || ! -f "$JAR_FILE" ]]; then
+    echo "Error: JAR file not found in target/"
+    echo "Run ./scripts/install-maven.sh or ./scripts/install-codeartifact.sh first"
+    exit 1
+fi
+
+if [[ $# -eq 0 || "$1" == --* ]]; then
+    set -- target/libs "$HOME/.m2/repository" "$@"
+fi
+
+java -cp "$JAR_FILE:target/libs/*" com.chainguard.demo.service.CentralDirectoryBenchmark "$@"
@@ -1,15 +1,29 @@
 package com.chainguard.demo;
 
 import com.chainguard.demo.service.ChainctlService;
+import com.chainguard.demo.service.ClassIndex;
+import com.chainguard.demo.service.ConflictAnalyzer;
+import com.chainguard.demo.service.JarDigests;
+import com.chainguard.demo.service.JarListings;
+import com.chainguard.demo.service.LibsCatalog;
+import com.chainguard.demo.model.PackageInfo;
+import com.chainguard.demo.model.VerificationResult;
 import com.chainguard.demo.service.SbomService;
+import com.chainguard.demo.service.VerificationJobService;
+import com.chainguard.demo.service.VerificationListener;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -19,11 +33,43 @@ import java.util.stream.Collectors;
  */
 public class DemoApplication {
 
-    private static final ChainctlService chainctlService = new ChainctlService();
-    private static final SbomService sbomService = new SbomService();
+    private static final LibsCatalog libsCatalog = new LibsCatalog(
+            Paths.get(System.getenv().getOrDefault("CHAINCTL_LIBS_DIR", "/app/libs")));
+    private static final JarDigests jarDigests = new JarDigests();
+    // Parsed JAR listings are cached up to roughly this much heap
+    private static final JarListings jarListings = new JarListings(
+            Long.parseLong(System.getenv().getOrDefault("JAR_LISTING_CACHE_MB", "64")) * 1024 * 1024);
+    private static final ChainctlService chainctlService = new ChainctlService(libsCatalog, jarDigests, jarListings);
+    private static final ClassIndex classIndex = new ClassIndex(libsCatalog, jarListings);
+    private static final ConflictAnalyzer conflictAnalyzer = new ConflictAnalyzer(libsCatalog, jarListings);
+    private static final SbomService sbomService = new SbomService(libsCatalog);
+    private static final VerificationJobService jobService = new VerificationJobService(chainctlService);
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    // Request executor: "virtual" (one virtual thread per request, Java 21+), "pool" (bounded platform pool)
+    // or "single" (the HttpServer dispatcher thread, the old behaviour)
+    private static final String executorMode = System.getenv().getOrDefault("HTTP_EXECUTOR", "virtual");
+    private static final int executorThreads = Integer.parseInt(System.getenv().getOrDefault("HTTP_EXECUTOR_THREADS", "32"));
+
+    // Per-route concurrency limits for routes that call out to chainctl or libraries.cgr.dev
+    private static final int upstreamConcurrency = Integer.parseInt(System.getenv().getOrDefault("HTTP_UPSTREAM_CONCURRENCY", "8"));
+    private static final int chainctlConcurrency = Integer.parseInt(System.getenv().getOrDefault("HTTP_CHAINCTL_CONCURRENCY", "2"));
+    private static final int eventStreamConcurrency = Integer.parseInt(System.getenv().getOrDefault("HTTP_EVENT_STREAMS", "16"));
+    private static final long routeWaitMillis = Long.parseLong(System.getenv().getOrDefault("HTTP_ROUTE_WAIT_MS", "5000"));
+    private static final Map<String, Semaphore> routeLimits = new ConcurrentHashMap<>();
+
+    // JSON responses at least this large are streamed, gzipped for clients that accept it
+    private static final int gzipMinBytes = Integer.parseInt(System.getenv().getOrDefault("HTTP_GZIP_MIN_BYTES", "8192"));
+    private static final ResponseMetrics responseMetrics = new ResponseMetrics();
+
     public static void main(String[] args) throws IOException {
+        libsCatalog.addListener(() -> {
+            List<Path> paths = libsCatalog.getJars().stream().map(LibsCatalog.Jar::getPath).collect(Collectors.toList());
+            jarDigests.retain(paths);
+            jarListings.retain(paths);
+            classIndex.update();
+        });
+        libsCatalog.start();
         HttpServer server = HttpServer.create(new InetSocketAddress(5001), 0);
 
         // Health check
@@ -33,50 +79,48 @@ public class DemoApplication {
 
         // Get list of dependencies
         server.createContext("/api/dependencies", exchange -> {
-            try {
-                Path libsPath = Paths.get("/app/libs");
-                if (!Files.exists(libsPath)) {
-                    sendJson(exchange, Collections.emptyList());
-                    return;
-                }
-                List<String> jars = Files.list(libsPath)
-                    .filter(p -> p.toString().endsWith(".jar"))
-                    .map(p -> p.getFileName().toString())
-                    .sorted()
+            List<String> jars = libsCatalog.getJars().stream()
+                    .map(LibsCatalog.Jar::getFileName)
                     .collect(Collectors.toList());
-                sendJson(exchange, jars);
-            } catch (Exception e) {
-                sendJson(exchange, Collections.emptyList());
-            }
+            sendJson(exchange, jars);
+        });
+
+        // Response and cache metrics
+        server.createContext("/api/metrics", exchange -> {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("responses", responseMetrics.snapshot());
+            metrics.put("jarListings", jarListings.stats());
+            metrics.put("sbomResults", sbomService.getCacheStats());
+            metrics.put("upstreamLookups", sbomService.getCoalescingStats());
+            sendJson(exchange, metrics);
         });
 
         // Get pom.xml content
         server.createContext("/api/pom", exchange -> {
+            // Only reading is guarded: a failed sendJson has already answered or must drop the connection
+            Map<String, String> response;
             try {
                 Path pomPath = Paths.get("/app/pom.xml");
-                if (!Files.exists(pomPath)) {
+                if (Files.exists(pomPath)) {
+                    response = Map.of("content", Files.readString(pomPath));
+                } else {
                     // Try classpath for local development
-                    InputStream is = DemoApplication.class.getResourceAsStream("/pom.xml");
-                    if (is != null) {
-                        String content = new String(is.readAllBytes());
-                        is.close();
-                        sendJson(exchange, Map.of("content", content));
-                        return;
+                    try (InputStream is = DemoApplication.class.getResourceAsStream("/pom.xml")) {
+                        response = is != null
+                                ? Map.of("content", new String(is.readAllBytes()))
+                                : Map.of("error", "pom.xml not found");
                     }
-                    sendJson(exchange, Map.of("error", "pom.xml not found"));
-                    return;
                 }
-                String content = Files.readString(pomPath);
-                sendJson(exchange, Map.of("content", content));
             } catch (Exception e) {
-                sendJson(exchange, Map.of("error", e.getMessage()));
+                response = Map.of("error", String.valueOf(e.getMessage()));
             }
+            sendJson(exchange, response);
         });
 
         // Authentication status
-        server.createContext("/api/auth/status", exchange -> {
+        server.createContext("/api/auth/status", limited("auth", chainctlConcurrency, exchange -> {
             sendJson(exchange, chainctlService.checkAuthStatus());
-        });
+        }));
 
         // Run chainctl verification
         server.createContext("/api/chainctl/progress", exchange -> {
@@ -87,24 +131,78 @@ public class DemoApplication {
             sendJson(exchange, chainctlService.getLogs());
         });
 
+        // Server-Sent Events for the default verification run: "progress" and "package"
+        // events as each JAR finishes, then "complete" before the stream is closed
+        server.createContext("/api/chainctl/events", limited("events", eventStreamConcurrency, DemoApplication::streamVerificationEvents));
+
+        // Background verification jobs
+        // POST /api/chainctl/jobs {"name", "libsDir", "parentOrg"} -> job id
+        // GET /api/chainctl/jobs and /api/chainctl/jobs/{id} -> status and partial results
+        server.createContext("/api/chainctl/jobs", exchange -> {
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            if ("POST".equals(method) && parts.length == 4) {
+                Object job;
+                try {
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    JsonNode request = body.length > 0 ? objectMapper.readTree(body) : objectMapper.createObjectNode();
+                    job = jobService.submit(
+                            request.path("name").asText(null),
+                            request.path("libsDir").asText(null),
+                            request.path("parentOrg").asText(null));
+                } catch (IllegalStateException e) {
+                    exchange.getResponseHeaders().set("Retry-After", "5");
+                    sendJson(exchange, 429, Map.of("error", e.getMessage()));
+                    return;
+                } catch (Exception e) {
+                    sendJson(exchange, 400, Map.of("error", "Invalid job request: " + e.getMessage()));
+                    return;
+                }
+                sendJson(exchange, 202, job);
+            } else if ("GET".equals(method) && parts.length == 4) {
+                sendJson(exchange, jobService.listJobs());
+            } else if ("GET".equals(method) && parts.length == 5) {
+                Object job = jobService.getJob(parts[4]);
+                sendJson(exchange, job != null ? 200 : 404, job != null ? job : Map.of("error", "Job not found: " + parts[4]));
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+            }
+        });
+
+        // Not limited: callers while a run is in progress join it instead of starting another,
+        // and chainctl processes are already bounded by the service's adaptive limiter
         server.createContext("/api/chainctl", exchange -> {
             String path = exchange.getRequestURI().getPath();
             // Avoid matching /api/chainctl/progress and /api/chainctl/logs
             if (!path.equals("/api/chainctl")) {
                 exchange.sendResponseHeaders(404, -1);
+                exchange.close();
                 return;
             }
+            Object results;
             try {
-                sendJson(exchange, chainctlService.getVerificationResults());
+                results = chainctlService.getVerificationResults();
             } catch (Exception e) {
-                sendJson(exchange, Map.of("error", e.getMessage()));
+                results = Map.of("error", String.valueOf(e.getMessage()));
             }
+            sendJson(exchange, results);
         });
 
         // Get JAR file contents - /api/jar-contents/{artifactId}/{version}
+        // With ?path=, ?offset= or ?limit= only one directory level or one page of entries is returned
         server.createContext("/api/jar-contents/", exchange -> {
             String[] parts = exchange.getRequestURI().getPath().split("/");
-            if (parts.length >= 5) {
+            Map<String, String> params = queryParams(exchange);
+            if (parts.length >= 5 && (params.containsKey("path") || params.containsKey("offset") || params.containsKey("limit"))) {
+                try {
+                    int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+                    int limit = Math.min(Integer.parseInt(params.getOrDefault("limit", "500")), 5000);
+                    sendJson(exchange, chainctlService.getJarContents(parts[3], parts[4], params.get("path"), offset, limit));
+                } catch (NumberFormatException e) {
+                    sendJson(exchange, 400, Map.of("error", "offset and limit must be numbers"));
+                }
+            } else if (parts.length >= 5) {
                 sendJson(exchange, chainctlService.getJarContents(parts[3], parts[4]));
             } else {
                 sendJson(exchange, Map.of("error", "Invalid path"));
@@ -122,8 +220,49 @@ public class DemoApplication {
             }
         });
 
+        // Bulk digests of every JAR - /api/digests?algorithms=sha1,sha256 (default: all)
+        server.createContext("/api/digests", exchange -> {
+            String requested = queryParams(exchange).get("algorithms");
+            List<String> algorithms = requested == null || requested.isEmpty()
+                    ? new ArrayList<>(JarDigests.ALGORITHMS.keySet())
+                    : Arrays.asList(requested.split(","));
+            for (String algorithm : algorithms) {
+                if (!JarDigests.ALGORITHMS.containsKey(algorithm)) {
+                    sendJson(exchange, 400, Map.of("error", "Unsupported algorithm: " + algorithm,
+                            "supported", JarDigests.ALGORITHMS.keySet()));
+                    return;
+                }
+            }
+            List<Path> jars = libsCatalog.getJars().stream()
+                    .map(LibsCatalog.Jar::getPath)
+                    .collect(Collectors.toList());
+            sendJson(exchange, jarDigests.digestAll(jars, algorithms));
+        });
+
+        // Which JARs contain a class or resource - /api/classes?name=com.example.Foo[&match=prefix][&limit=100]
+        server.createContext("/api/classes", exchange -> {
+            Map<String, String> params = queryParams(exchange);
+            String name = params.get("name");
+            String match = params.getOrDefault("match", "exact");
+            if (name == null || name.isEmpty() || !(match.equals("exact") || match.equals("prefix"))) {
+                sendJson(exchange, 400, Map.of("error", "name is required and match must be exact or prefix"));
+                return;
+            }
+            try {
+                int limit = Math.min(Integer.parseInt(params.getOrDefault("limit", "100")), 1000);
+                sendJson(exchange, classIndex.search(name, match.equals("prefix"), limit));
+            } catch (NumberFormatException e) {
+                sendJson(exchange, 400, Map.of("error", "limit must be a number"));
+            }
+        });
+
+        // Duplicate classes and resources, mismatched duplicates and split packages across the libs dir
+        server.createContext("/api/conflicts", exchange -> {
+            sendJson(exchange, conflictAnalyzer.analyze());
+        });
+
         // Get SBOM - /api/sbom/{groupId}/{artifactId}/{version} or /api/sbom/{artifactId}/{version}
-        server.createContext("/api/sbom/", exchange -> {
+        server.createContext("/api/sbom/", limited("upstream", upstreamConcurrency, exchange -> {
             String[] parts = exchange.getRequestURI().getPath().split("/");
             if (parts.length >= 6) {
                 String groupId = parts[3].replace('-', '.');
@@ -133,10 +272,10 @@ public class DemoApplication {
             } else {
                 sendJson(exchange, Map.of("error", "Invalid path"));
             }
-        });
+        }));
 
         // Get provenance - /api/provenance/{groupId}/{artifactId}/{version} or /api/provenance/{artifactId}/{version}
-        server.createContext("/api/provenance/", exchange -> {
+        server.createContext("/api/provenance/", limited("upstream", upstreamConcurrency, exchange -> {
             String[] parts = exchange.getRequestURI().getPath().split("/");
             if (parts.length >= 6) {
                 String groupId = parts[3].replace('-', '.');
@@ -146,56 +285,176 @@ public class DemoApplication {
             } else {
                 sendJson(exchange, Map.of("error", "Invalid path"));
             }
-        });
+        }));
 
-        // Serve static files
-        server.createContext("/", exchange -> {
-            String path = exchange.getRequestURI().getPath();
-            if (path.equals("/")) {
-                path = "/index.html";
-            }
+        // Serve static files from memory
+        StaticAssets staticAssets = StaticAssets.load("/static", Paths.get("/app/static"));
+        server.createContext("/", staticAssets);
+
+        server.setExecutor(createExecutor());
+        server.start();
+        System.out.println("Java Libraries Demo running at http://localhost:5001 (executor: " + executorMode + ")");
+    }
 
-            // Try classpath first, then filesystem
-            InputStream is = DemoApplication.class.getResourceAsStream("/static" + path);
-            if (is == null) {
-                // Try /app/static for Docker
-                Path filePath = Paths.get("/app/static" + path);
-                if (Files.exists(filePath)) {
-                    is = Files.newInputStream(filePath);
+    /**
+     * Create the request executor selected by HTTP_EXECUTOR.
+     * Virtual threads are looked up reflectively so the build keeps targeting Java 17;
+     * on older runtimes we fall back to a bounded platform pool.
+     */
+    private static Executor createExecutor() {
+        switch (executorMode) {
+            case "single":
+                return null;
+            case "virtual":
+                try {
+                    return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    System.out.println("Virtual threads not available on this JVM, using a pool of " + executorThreads + " threads");
+                    return newPool();
+                }
+            default:
+                return newPool();
+        }
+    }
+
+    private static Executor newPool() {
+        return new ThreadPoolExecutor(executorThreads, executorThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedThreadFactory("http-"));
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        ThreadFactory defaults = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = defaults.newThread(runnable);
+            thread.setName(prefix + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Wrap a handler with a concurrency limit shared by every route in the same group.
+     * Requests that cannot get a permit within HTTP_ROUTE_WAIT_MS are rejected with 503
+     * so slow upstream-bound routes cannot tie up every request thread.
+     */
+    private static HttpHandler limited(String group, int permits, HttpHandler handler) {
+        Semaphore semaphore = routeLimits.computeIfAbsent(group, g -> new Semaphore(Math.max(1, permits)));
+        return exchange -> {
+            boolean acquired = false;
+            try {
+                acquired = semaphore.tryAcquire(routeWaitMillis, TimeUnit.MILLISECONDS);
+                if (acquired) {
+                    handler.handle(exchange);
+                } else {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendJson(exchange, 503, Map.of("error", "Too many concurrent " + group + " requests, try again shortly"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(503, -1);
+            } finally {
+                if (acquired) {
+                    semaphore.release();
                 }
             }
+            // Not closed when the handler throws: closing would terminate a chunked body that was
+            // cut short, so the exception is left to the server, which drops the connection instead
+            exchange.close();
+        };
+    }
 
-            if (is != null) {
-                byte[] content = is.readAllBytes();
-                is.close();
+    private static void streamVerificationEvents(HttpExchange exchange) throws IOException {
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        VerificationListener listener = new VerificationListener() {
+            @Override
+            public void onStart(int total) {
+                events.add(sseEvent("progress", Map.of("completed", 0, "total", total, "status", "running")));
+            }
 
-                String contentType = "text/plain";
-                if (path.endsWith(".html")) contentType = "text/html";
-                else if (path.endsWith(".css")) contentType = "text/css";
-                else if (path.endsWith(".js")) contentType = "application/javascript";
-                else if (path.endsWith(".json")) contentType = "application/json";
-                else if (path.endsWith(".svg")) contentType = "image/svg+xml";
-                else if (path.endsWith(".png")) contentType = "image/png";
+            @Override
+            public void onPackage(PackageInfo pkg, int completed, int total) {
+                events.add(sseEvent("package", pkg));
+                events.add(sseEvent("progress", Map.of("completed", completed, "total", total, "status", "running")));
+            }
 
-                exchange.getResponseHeaders().set("Content-Type", contentType);
-                exchange.sendResponseHeaders(200, content.length);
-                exchange.getResponseBody().write(content);
-                exchange.getResponseBody().close();
-            } else {
-                exchange.sendResponseHeaders(404, -1);
+            @Override
+            public void onComplete(VerificationResult result) {
+                events.add(sseEvent("complete", chainctlService.getProgress()));
             }
-        });
+        };
 
-        server.setExecutor(null);
-        server.start();
-        System.out.println("Java Libraries Demo running at http://localhost:5001");
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        chainctlService.subscribe(listener);
+        try {
+            out.write(sseEvent("progress", chainctlService.getProgress()).getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            while (true) {
+                String event = events.poll(15, TimeUnit.SECONDS);
+                // Comment lines keep proxies from timing out idle streams and detect closed clients
+                out.write((event != null ? event : ": keep-alive\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (event != null && event.startsWith("event: complete")) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Client disconnected
+        } finally {
+            chainctlService.unsubscribe(listener);
+            exchange.close();
+        }
+    }
+
+    private static String sseEvent(String name, Object data) {
+        try {
+            return "event: " + name + "\ndata: " + objectMapper.writeValueAsString(data) + "\n\n";
+        } catch (IOException e) {
+            return "event: " + name + "\ndata: {}\n\n";
+        }
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
     }
 
     private static void sendJson(HttpExchange exchange, Object data) throws IOException {
-        byte[] response = objectMapper.writeValueAsBytes(data);
+        sendJson(exchange, 200, data);
+    }
+
+    /**
+     * Serialize straight into the response. Bodies under HTTP_GZIP_MIN_BYTES get a
+     * Content-Length; larger ones are streamed chunked, gzipped if the client accepts it.
+     */
+    private static void sendJson(HttpExchange exchange, int status, Object data) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(200, response.length);
-        exchange.getResponseBody().write(response);
-        exchange.getResponseBody().close();
+        JsonResponseStream out = new JsonResponseStream(exchange, status, gzipMinBytes, StaticAssets.acceptsGzip(exchange));
+        try {
+            objectMapper.writeValue(out, data);
+        } catch (IOException | RuntimeException e) {
+            // Never send partial JSON as a success: a 500 if nothing went out yet, otherwise drop the connection
+            if (!out.abort(objectMapper.writeValueAsBytes(Map.of("error", String.valueOf(e.getMessage()))))) {
+                throw e;
+            }
+            return;
+        }
+        out.finish();
+        responseMetrics.record(exchange.getHttpContext().getPath(), out.getRawBytes(), out.getSentBytes(), out.isCompressed());
     }
 }
@@ -0,0 +1,136 @@
+package com.chainguard.demo;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response body for JSON written directly by Jackson's generator.
+ * Output is buffered until it reaches the threshold: small responses are sent with a
+ * Content-Length as before, larger ones switch to chunked transfer encoding (gzipped
+ * when the client accepts it) and stream without ever holding the whole payload.
+ */
+class JsonResponseStream extends OutputStream {
+    private final HttpExchange exchange;
+    private final int status;
+    private final int threshold;
+    private final boolean gzip;
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private CountingOutputStream sent;
+    private OutputStream target;
+    private long rawBytes;
+    private boolean closed;
+
+    JsonResponseStream(HttpExchange exchange, int status, int threshold, boolean gzip) {
+        this.exchange = exchange;
+        this.status = status;
+        this.threshold = threshold;
+        this.gzip = gzip;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        rawBytes += len;
+        if (target != null) {
+            target.write(b, off, len);
+            return;
+        }
+        buffer.write(b, off, len);
+        if (buffer.size() >= threshold) {
+            startStreaming();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Only flush once streaming; flushing the buffer would force early headers
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Ignored: Jackson closes its target whether or not serialization succeeded, so the
+     * response is only completed by {@link #finish()} or {@link #abort(byte[])}
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Complete the response after successful serialization
+     */
+    void finish() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (target != null) {
+            target.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, buffer.size());
+        sent = new CountingOutputStream(exchange.getResponseBody());
+        try (OutputStream out = sent) {
+            buffer.writeTo(out);
+        }
+        buffer = null;
+    }
+
+    /**
+     * Give up after serialization failed, without committing partial JSON. If nothing has been
+     * sent yet the buffered output is replaced by a 500 with the given body and true is returned.
+     * Once streaming has started the body is left unterminated and false is returned; the caller
+     * should rethrow so the server drops the connection and the client sees a truncated transfer.
+     */
+    boolean abort(byte[] errorBody) throws IOException {
+        if (closed) {
+            return target == null;
+        }
+        closed = true;
+        if (target != null) {
+            return false;
+        }
+        buffer = null;
+        exchange.getResponseHeaders().remove("Content-Encoding");
+        exchange.sendResponseHeaders(500, errorBody.length);
+        sent = new CountingOutputStream(exchange.getResponseBody());
+        try (OutputStream out = sent) {
+            out.write(errorBody);
+        }
+        return true;
+    }
+
+    private void startStreaming() throws IOException {
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        }
+        exchange.sendResponseHeaders(status, 0);
+        sent = new CountingOutputStream(exchange.getResponseBody());
+        target = gzip ? new GZIPOutputStream(sent, 8192) : sent;
+        buffer.writeTo(target);
+        buffer = null;
+    }
+
+    boolean isCompressed() {
+        return gzip && target != null;
+    }
+
+    long getRawBytes() {
+        return rawBytes;
+    }
+
+    long getSentBytes() {
+        return sent != null ? sent.getCount() : 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.chainguard.demo;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-route counters for JSON responses: how many were gzipped and how much that saved
+ */
+class ResponseMetrics {
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    void record(String route, long rawBytes, long sentBytes, boolean compressed) {
+        Route counters = routes.computeIfAbsent(route, r -> new Route());
+        counters.responses.increment();
+        counters.rawBytes.add(rawBytes);
+        counters.sentBytes.add(sentBytes);
+        if (compressed) {
+            counters.compressedResponses.increment();
+        }
+    }
+
+    Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        routes.forEach((route, counters) -> {
+            long raw = counters.rawBytes.sum();
+            long sent = counters.sentBytes.sum();
+            snapshot.put(route, Map.of(
+                    "responses", counters.responses.sum(),
+                    "compressedResponses", counters.compressedResponses.sum(),
+                    "rawBytes", raw,
+                    "sentBytes", sent,
+                    "compressionRatio", sent > 0 ? (double) raw / sent : 1.0));
+        });
+        return snapshot;
+    }
+
+    private static final class Route {
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder compressedResponses = new LongAdder();
+        private final LongAdder rawBytes = new LongAdder();
+        private final LongAdder sentBytes = new LongAdder();
+    }
+}
@@ -0,0 +1,188 @@
+package com.chainguard.demo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the static UI from memory. Every asset is read once at startup from the
+ * classpath (/static) and /app/static, with a gzip variant and ETag computed up front,
+ * so requests never touch the disk and repeat loads are answered with 304.
+ */
+public class StaticAssets implements HttpHandler {
+
+    // Don't bother compressing tiny files or formats that are already compressed
+    private static final int MIN_GZIP_SIZE = 512;
+
+    private final Map<String, Asset> assets;
+
+    private StaticAssets(Map<String, Asset> assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Load assets from the classpath, then add any only present under the filesystem directory
+     */
+    public static StaticAssets load(String classpathRoot, Path fileSystemRoot) throws IOException {
+        Map<String, Asset> assets = new HashMap<>();
+        URL root = StaticAssets.class.getResource(classpathRoot);
+        if (root != null) {
+            try {
+                URI uri = root.toURI();
+                if ("jar".equals(uri.getScheme())) {
+                    try (FileSystem jarFs = FileSystems.newFileSystem(uri, Map.of())) {
+                        loadTree(jarFs.getPath(classpathRoot), assets);
+                    }
+                } else {
+                    loadTree(Paths.get(uri), assets);
+                }
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid static resource location: " + root, e);
+            }
+        }
+        if (Files.isDirectory(fileSystemRoot)) {
+            Map<String, Asset> fromDisk = new HashMap<>();
+            loadTree(fileSystemRoot, fromDisk);
+            fromDisk.forEach(assets::putIfAbsent);
+        }
+        return new StaticAssets(Collections.unmodifiableMap(assets));
+    }
+
+    private static void loadTree(Path root, Map<String, Asset> assets) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String path = "/" + root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                assets.put(path, Asset.of(path, Files.readAllBytes(file)));
+            }
+        }
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/")) {
+            path = "/index.html";
+        }
+
+        Asset asset = assets.get(path);
+        if (asset == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        // Each encoding is a separate representation, so the gzip variant gets its own ETag
+        boolean gzip = asset.gzipped != null && acceptsGzip(exchange);
+        String etag = gzip ? asset.etag.replaceFirst("\"$", "-gzip\"") : asset.etag;
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", asset.cacheControl);
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = asset.content;
+        if (gzip) {
+            body = asset.gzipped;
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", asset.contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Whether the client listed gzip in Accept-Encoding without disabling it via q=0
+     */
+    static boolean acceptsGzip(HttpExchange exchange) {
+        List<String> headers = exchange.getRequestHeaders().get("Accept-Encoding");
+        if (headers == null) {
+            return false;
+        }
+        for (String header : headers) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String contentType(String path) {
+        if (path.endsWith(".html")) return "text/html";
+        if (path.endsWith(".css")) return "text/css";
+        if (path.endsWith(".js")) return "application/javascript";
+        if (path.endsWith(".json")) return "application/json";
+        if (path.endsWith(".svg")) return "image/svg+xml";
+        if (path.endsWith(".png")) return "image/png";
+        return "text/plain";
+    }
+
+    /**
+     * One static file with its precomputed representations
+     */
+    private static final class Asset {
+        private final byte[] content;
+        private final byte[] gzipped;
+        private final String contentType;
+        private final String etag;
+        private final String cacheControl;
+
+        private Asset(byte[] content, byte[] gzipped, String contentType, String etag, String cacheControl) {
+            this.content = content;
+            this.gzipped = gzipped;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.cacheControl = cacheControl;
+        }
+
+        static Asset of(String path, byte[] content) throws IOException {
+            String contentType = contentType(path);
+            byte[] gzipped = null;
+            if (content.length >= MIN_GZIP_SIZE && !contentType.equals("image/png")) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                    gzip.write(content);
+                }
+                if (buffer.size() < content.length) {
+                    gzipped = buffer.toByteArray();
+                }
+            }
+            // HTML is revalidated on every load so UI changes show up; other assets can be reused for a day
+            String cacheControl = contentType.equals("text/html") ? "no-cache" : "public, max-age=86400";
+            return new Asset(content, gzipped, contentType, etag(content), cacheControl);
+        }
+
+        private static String etag(byte[] content) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+                return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.chainguard.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class and resource paths matching a query, with the JARs that contain each one
+ */
+public class ClassSearchResult {
+    private String name;
+    private String match;
+    private List<Location> results = new ArrayList<>();
+    private boolean truncated;
+    private int indexedJars;
+    private long indexedEntries;
+    private boolean indexing;
+
+    public ClassSearchResult() {}
+
+    // Getters and setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getMatch() { return match; }
+    public void setMatch(String match) { this.match = match; }
+
+    public List<Location> getResults() { return results; }
+    public void setResults(List<Location> results) { this.results = results; }
+
+    public boolean isTruncated() { return truncated; }
+    public void setTruncated(boolean truncated) { this.truncated = truncated; }
+
+    public int getIndexedJars() { return indexedJars; }
+    public void setIndexedJars(int indexedJars) { this.indexedJars = indexedJars; }
+
+    public long getIndexedEntries() { return indexedEntries; }
+    public void setIndexedEntries(long indexedEntries) { this.indexedEntries = indexedEntries; }
+
+    public boolean isIndexing() { return indexing; }
+    public void setIndexing(boolean indexing) { this.indexing = indexing; }
+
+    public static class Location {
+        private String path;
+        private String className;
+        private List<String> jars;
+
+        public Location() {}
+
+        public Location(String path, String className, List<String> jars) {
+            this.path = path;
+            this.className = className;
+            this.jars = jars;
+        }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public String getClassName() { return className; }
+        public void setClassName(String className) { this.className = className; }
+
+        public List<String> getJars() { return jars; }
+        public void setJars(List<String> jars) { this.jars = jars; }
+    }
+}
@@ -0,0 +1,42 @@
+package com.chainguard.demo.model;
+
+/**
+ * Snapshot of the adaptive concurrency limit used for chainctl processes
+ */
+public class ConcurrencyStats {
+    private int limit;
+    private int inFlight;
+    private int minLimit;
+    private int maxLimit;
+    private double latencyMs;
+    private double baselineLatencyMs;
+    private long successes;
+    private long failures;
+
+    public ConcurrencyStats() {}
+
+    // Getters and setters
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public int getInFlight() { return inFlight; }
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    public int getMinLimit() { return minLimit; }
+    public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+    public int getMaxLimit() { return maxLimit; }
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+    public double getLatencyMs() { return latencyMs; }
+    public void setLatencyMs(double latencyMs) { this.latencyMs = latencyMs; }
+
+    public double getBaselineLatencyMs() { return baselineLatencyMs; }
+    public void setBaselineLatencyMs(double baselineLatencyMs) { this.baselineLatencyMs = baselineLatencyMs; }
+
+    public long getSuccesses() { return successes; }
+    public void setSuccesses(long successes) { this.successes = successes; }
+
+    public long getFailures() { return failures; }
+    public void setFailures(long failures) { this.failures = failures; }
+}
@@ -0,0 +1,93 @@
+package com.chainguard.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classpath conflicts between the JARs in the libs directory: paths present in more than
+ * one JAR (identical or with different contents) and packages split across JARs
+ */
+public class ConflictReport {
+    private long generation;
+    private int jarsScanned;
+    private long entriesScanned;
+    private long durationMs;
+    private List<Duplicate> duplicates = new ArrayList<>();
+    private List<Duplicate> mismatches = new ArrayList<>();
+    private List<SplitPackage> splitPackages = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();
+
+    public ConflictReport() {}
+
+    // Getters and setters
+    public long getGeneration() { return generation; }
+    public void setGeneration(long generation) { this.generation = generation; }
+
+    public int getJarsScanned() { return jarsScanned; }
+    public void setJarsScanned(int jarsScanned) { this.jarsScanned = jarsScanned; }
+
+    public long getEntriesScanned() { return entriesScanned; }
+    public void setEntriesScanned(long entriesScanned) { this.entriesScanned = entriesScanned; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public List<Duplicate> getDuplicates() { return duplicates; }
+    public void setDuplicates(List<Duplicate> duplicates) { this.duplicates = duplicates; }
+
+    public List<Duplicate> getMismatches() { return mismatches; }
+    public void setMismatches(List<Duplicate> mismatches) { this.mismatches = mismatches; }
+
+    public List<SplitPackage> getSplitPackages() { return splitPackages; }
+    public void setSplitPackages(List<SplitPackage> splitPackages) { this.splitPackages = splitPackages; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+
+    /**
+     * A path found in several JARs
+     */
+    public static class Duplicate {
+        private String path;
+        private List<String> jars;
+        private int distinctContents;
+
+        public Duplicate() {}
+
+        public Duplicate(String path, List<String> jars, int distinctContents) {
+            this.path = path;
+            this.jars = jars;
+            this.distinctContents = distinctContents;
+        }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public List<String> getJars() { return jars; }
+        public void setJars(List<String> jars) { this.jars = jars; }
+
+        public int getDistinctContents() { return distinctContents; }
+        public void setDistinctContents(int distinctContents) { this.distinctContents = distinctContents; }
+    }
+
+    /**
+     * A package with classes in several JARs
+     */
+    public static class SplitPackage {
+        private String packageName;
+        private List<String> jars;
+
+        public SplitPackage() {}
+
+        public SplitPackage(String packageName, List<String> jars) {
+            this.packageName = packageName;
+            this.jars = jars;
+        }
+
+        public String getPackageName() { return packageName; }
+        public void setPackageName(String packageName) { this.packageName = packageName; }
+
+        public List<String> getJars() { return jars; }
+        public void setJars(List<String> jars) { this.jars = jars; }
+    }
+}
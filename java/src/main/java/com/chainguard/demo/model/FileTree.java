@@ -0,0 +1,197 @@
+package com.chainguard.demo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical view of JAR entries stored as a compact trie: one slot per path segment in
+ * parallel primitive arrays, with segment names interned and children found through an
+ * open-addressing table. Serializes to the same JSON as the nested maps it replaces:
+ * <pre>
+ * {"com": {"type": "dir", "children": {"A.class": {"type": "file", "size": 12, "path": "com/A.class"}}}}
+ * </pre>
+ */
+public class FileTree extends JsonSerializable.Base {
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private static final byte HAS_LEAF = 1;      // an entry ends at this node
+    private static final byte LEAF_DIR = 2;      // that entry is a directory entry
+    private static final byte HAS_CHILDREN = 4;  // entries continue below this node
+
+    private final Map<String, String> segments = new HashMap<>();
+
+    private int count;
+    private String[] segment;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+    private long[] size;
+    private String[] path;
+    private byte[] flags;
+
+    // (parent, segment) -> node + 1, 0 meaning empty
+    private int[] table;
+
+    public FileTree(int expectedEntries) {
+        int capacity = Math.max(16, expectedEntries * 2);
+        segment = new String[capacity];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        lastChild = new int[capacity];
+        nextSibling = new int[capacity];
+        size = new long[capacity];
+        path = new String[capacity];
+        flags = new byte[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        newNode(NONE, "");
+    }
+
+    public static FileTree of(List<JarContents.FileInfo> files) {
+        FileTree tree = new FileTree(files.size());
+        for (JarContents.FileInfo file : files) {
+            tree.add(file.getPath(), file.getSize(), file.isDir());
+        }
+        return tree;
+    }
+
+    /**
+     * Add an entry. Empty segments (leading, doubled or trailing slashes) are skipped.
+     */
+    public void add(String entryPath, long entrySize, boolean isDir) {
+        int end = entryPath.length();
+        while (end > 0 && entryPath.charAt(end - 1) == '/') {
+            end--;
+        }
+
+        int node = ROOT;
+        int start = 0;
+        while (start < end) {
+            int slash = entryPath.indexOf('/', start);
+            if (slash < 0 || slash > end) {
+                slash = end;
+            }
+            if (slash > start) {
+                node = child(node, entryPath.substring(start, slash));
+                if (slash < end) {
+                    flags[node] |= HAS_CHILDREN;
+                }
+            }
+            start = slash + 1;
+        }
+
+        if (node != ROOT) {
+            flags[node] = (byte) ((flags[node] & HAS_CHILDREN) | HAS_LEAF | (isDir ? LEAF_DIR : 0));
+            size[node] = entrySize;
+            path[node] = entryPath;
+        }
+    }
+
+    private int child(int parentNode, String name) {
+        int mask = table.length - 1;
+        int slot = hash(parentNode, name) & mask;
+        while (table[slot] != 0) {
+            int candidate = table[slot] - 1;
+            if (parent[candidate] == parentNode && segment[candidate].equals(name)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int node = newNode(parentNode, segments.computeIfAbsent(name, n -> n));
+        table[slot] = node + 1;
+        if (firstChild[parentNode] == NONE) {
+            firstChild[parentNode] = node;
+        } else {
+            nextSibling[lastChild[parentNode]] = node;
+        }
+        lastChild[parentNode] = node;
+
+        if (count * 2 > table.length) {
+            rehash();
+        }
+        return node;
+    }
+
+    private int newNode(int parentNode, String name) {
+        if (count == segment.length) {
+            int capacity = count * 2;
+            segment = Arrays.copyOf(segment, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            lastChild = Arrays.copyOf(lastChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            size = Arrays.copyOf(size, capacity);
+            path = Arrays.copyOf(path, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        int node = count++;
+        segment[node] = name;
+        parent[node] = parentNode;
+        firstChild[node] = NONE;
+        lastChild[node] = NONE;
+        nextSibling[node] = NONE;
+        return node;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int node = 1; node < count; node++) {
+            int slot = hash(parent[node], segment[node]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = node + 1;
+        }
+    }
+
+    private static int hash(int parentNode, String name) {
+        int h = name.hashCode() * 31 + parentNode;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeChildren(gen, ROOT);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+        serialize(gen, provider);
+    }
+
+    private void writeChildren(JsonGenerator gen, int node) throws IOException {
+        gen.writeStartObject();
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            gen.writeFieldName(segment[child]);
+            writeNode(gen, child);
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeNode(JsonGenerator gen, int node) throws IOException {
+        gen.writeStartObject();
+        if ((flags[node] & HAS_LEAF) != 0) {
+            gen.writeStringField("type", (flags[node] & LEAF_DIR) != 0 ? "dir" : "file");
+            gen.writeNumberField("size", size[node]);
+            gen.writeStringField("path", path[node]);
+        } else {
+            gen.writeStringField("type", "dir");
+        }
+        if ((flags[node] & HAS_CHILDREN) != 0) {
+            gen.writeFieldName("children");
+            writeChildren(gen, node);
+        }
+        gen.writeEndObject();
+    }
+}
@@ -1,8 +1,9 @@
 package com.chainguard.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Contents of a JAR file
@@ -15,7 +16,11 @@ public class JarContents {
     private int totalFiles;
     private long totalSize;
     private List<FileInfo> files;
-    private Map<String, Object> tree;
+    private FileTree tree;
+    private String path;
+    private Integer offset;
+    private Integer limit;
+    private Integer matchingFiles;
     private String error;
 
     public JarContents() {
@@ -44,8 +49,20 @@ public class JarContents {
     public List<FileInfo> getFiles() { return files; }
     public void setFiles(List<FileInfo> files) { this.files = files; }
 
-    public Map<String, Object> getTree() { return tree; }
-    public void setTree(Map<String, Object> tree) { this.tree = tree; }
+    public FileTree getTree() { return tree; }
+    public void setTree(FileTree tree) { this.tree = tree; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public Integer getOffset() { return offset; }
+    public void setOffset(Integer offset) { this.offset = offset; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+
+    public Integer getMatchingFiles() { return matchingFiles; }
+    public void setMatchingFiles(Integer matchingFiles) { this.matchingFiles = matchingFiles; }
 
     public String getError() { return error; }
     public void setError(String error) { this.error = error; }
@@ -58,6 +75,7 @@ public class JarContents {
         private long size;
         private long compressedSize;
         private boolean isDir;
+        private long crc;
 
         public FileInfo() {}
 
@@ -79,5 +97,10 @@ public class JarContents {
 
         public boolean isDir() { return isDir; }
         public void setDir(boolean dir) { isDir = dir; }
+
+        // Used internally (e.g. conflict analysis) but not part of the jar-contents response
+        @JsonIgnore
+        public long getCrc() { return crc; }
+        public void setCrc(long crc) { this.crc = crc; }
     }
 }
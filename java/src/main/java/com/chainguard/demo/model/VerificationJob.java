@@ -0,0 +1,79 @@
+package com.chainguard.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A verification run submitted through the jobs API, with partial results
+ */
+public class VerificationJob {
+    private String id;
+    private String name;
+    private String libsDir;
+    private String parentOrg;
+    private String status; // queued, running, complete, failed
+    private int completed;
+    private int total;
+    private String submittedAt;
+    private String finishedAt;
+    private final List<PackageInfo> packages = new ArrayList<>();
+    private VerificationResult result;
+    private String error;
+
+    public VerificationJob() {
+        this.status = "queued";
+    }
+
+    public VerificationJob(String id, String name, String libsDir, String parentOrg) {
+        this();
+        this.id = id;
+        this.name = name;
+        this.libsDir = libsDir;
+        this.parentOrg = parentOrg;
+    }
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getLibsDir() { return libsDir; }
+    public void setLibsDir(String libsDir) { this.libsDir = libsDir; }
+
+    public String getParentOrg() { return parentOrg; }
+    public void setParentOrg(String parentOrg) { this.parentOrg = parentOrg; }
+
+    public synchronized String getStatus() { return status; }
+    public synchronized void setStatus(String status) { this.status = status; }
+
+    public synchronized int getCompleted() { return completed; }
+    public synchronized void setCompleted(int completed) { this.completed = completed; }
+
+    public synchronized int getTotal() { return total; }
+    public synchronized void setTotal(int total) { this.total = total; }
+
+    public String getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(String submittedAt) { this.submittedAt = submittedAt; }
+
+    public synchronized String getFinishedAt() { return finishedAt; }
+    public synchronized void setFinishedAt(String finishedAt) { this.finishedAt = finishedAt; }
+
+    public synchronized List<PackageInfo> getPackages() { return new ArrayList<>(packages); }
+
+    public synchronized VerificationResult getResult() { return result; }
+    public synchronized void setResult(VerificationResult result) {
+        this.result = result;
+        // The result lists every package, so the partial list would only repeat it
+        this.packages.clear();
+    }
+
+    public synchronized String getError() { return error; }
+    public synchronized void setError(String error) { this.error = error; }
+
+    public synchronized void addPackage(PackageInfo pkg, int completed) {
+        this.packages.add(pkg);
+        this.completed = completed;
+    }
+}
@@ -7,6 +7,7 @@ public class VerificationProgress {
     private int completed;
     private int total;
     private String status; // idle, running, complete
+    private ConcurrencyStats concurrency;
 
     public VerificationProgress() {
         this.status = "idle";
@@ -26,4 +27,7 @@ public class VerificationProgress {
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+
+    public ConcurrencyStats getConcurrency() { return concurrency; }
+    public void setConcurrency(ConcurrencyStats concurrency) { this.concurrency = concurrency; }
 }
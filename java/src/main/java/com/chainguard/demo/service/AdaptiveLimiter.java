@@ -0,0 +1,118 @@
+package com.chainguard.demo.service;
+
+import com.chainguard.demo.model.ConcurrencyStats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AIMD concurrency limiter for chainctl processes.
+ * The limit grows by roughly one per round of completions while latency stays near
+ * its baseline, shrinks gently when latency climbs, and halves on timeouts or
+ * non-zero exits (e.g. when the Chainguard API starts throttling).
+ * Latency is tracked per batch size, so a short trailing batch is never compared
+ * against the baseline of full ones. The limit decreases at most once per window:
+ * processes started before the last decrease cannot decrease it again, so a burst of
+ * failures halves it once rather than once per failed process.
+ */
+public class AdaptiveLimiter {
+    private static final double SMOOTHING = 0.2;
+    private static final double BASELINE_DRIFT = 0.01;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double FAILURE_BACKOFF = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private int inFlight;
+    private long decreases;
+    private final Map<Integer, Latency> latencies = new HashMap<>();
+    private Latency lastLatency = new Latency();
+    private long successes;
+    private long failures;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Block until a slot is available under the current limit. Returns the ticket to pass
+     * back to release.
+     */
+    public synchronized long acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+        return decreases;
+    }
+
+    /**
+     * Release a slot and feed the observed process latency and outcome back into the limit
+     */
+    public synchronized void release(long ticket, int batchSize, long latencyNanos, boolean success) {
+        boolean wasSaturated = inFlight >= (int) limit;
+        // Started before the last decrease, so it has already been accounted for
+        boolean mayDecrease = ticket == decreases;
+        inFlight--;
+
+        if (!success) {
+            failures++;
+            if (mayDecrease) {
+                decrease(FAILURE_BACKOFF);
+            }
+        } else {
+            successes++;
+            Latency latency = latencies.computeIfAbsent(batchSize, size -> new Latency());
+            latency.record(latencyNanos / 1_000_000.0);
+            lastLatency = latency;
+
+            if (latency.smoothedMs > latency.baselineMs * LATENCY_TOLERANCE) {
+                if (mayDecrease) {
+                    decrease(LATENCY_BACKOFF);
+                }
+            } else if (wasSaturated) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+        notifyAll();
+    }
+
+    private void decrease(double factor) {
+        limit = Math.max(minLimit, limit * factor);
+        decreases++;
+    }
+
+    public synchronized ConcurrencyStats snapshot() {
+        ConcurrencyStats stats = new ConcurrencyStats();
+        stats.setLimit((int) limit);
+        stats.setInFlight(inFlight);
+        stats.setMinLimit(minLimit);
+        stats.setMaxLimit(maxLimit);
+        stats.setLatencyMs(lastLatency.smoothedMs);
+        stats.setBaselineLatencyMs(lastLatency.baselineMs);
+        stats.setSuccesses(successes);
+        stats.setFailures(failures);
+        return stats;
+    }
+
+    /**
+     * Smoothed and baseline latency of processes verifying one batch size
+     */
+    private static final class Latency {
+        private double smoothedMs;
+        private double baselineMs;
+
+        void record(double sampleMs) {
+            smoothedMs = smoothedMs == 0 ? sampleMs : smoothedMs + SMOOTHING * (sampleMs - smoothedMs);
+            // Baseline follows the fastest observed latency, drifting up slowly so it can recover
+            baselineMs = baselineMs == 0 || sampleMs < baselineMs
+                    ? sampleMs
+                    : baselineMs + BASELINE_DRIFT * (smoothedMs - baselineMs);
+        }
+    }
+}
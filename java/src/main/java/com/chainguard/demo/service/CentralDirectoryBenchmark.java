@@ -0,0 +1,126 @@
+package com.chainguard.demo.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares listing JARs with {@link CentralDirectoryReader} against {@link JarFile}.
+ *
+ * Usage: java -cp ... com.chainguard.demo.service.CentralDirectoryBenchmark [dir-or-jar ...] [--iterations N]
+ */
+public class CentralDirectoryBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int iterations = 20;
+        List<Path> jars = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else {
+                jars.addAll(findJars(Paths.get(args[i])));
+            }
+        }
+        if (jars.isEmpty()) {
+            jars.addAll(findJars(Paths.get(System.getenv().getOrDefault("CHAINCTL_LIBS_DIR", "/app/libs"))));
+        }
+        if (jars.isEmpty()) {
+            System.err.println("No JARs found");
+            System.exit(1);
+        }
+
+        // Largest first so the interesting rows are at the top
+        jars.sort((a, b) -> Long.compare(size(b), size(a)));
+
+        // Warm up both paths over the whole corpus so JIT compilation is not measured
+        for (int round = 0; round < 3; round++) {
+            for (Path jar : jars) {
+                listWithJarFile(jar);
+                listWithReader(jar);
+            }
+        }
+
+        System.out.printf("%-48s %8s %10s %12s %12s %8s%n", "JAR", "entries", "size KB", "JarFile us", "reader us", "speedup");
+        double totalJarFile = 0;
+        double totalReader = 0;
+        for (Path jar : jars) {
+            int entries = listWithJarFile(jar);
+            if (entries != listWithReader(jar)) {
+                System.err.println("Entry count mismatch for " + jar.getFileName());
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                listWithJarFile(jar);
+            }
+            double jarFileMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                listWithReader(jar);
+            }
+            double readerMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+            totalJarFile += jarFileMicros;
+            totalReader += readerMicros;
+            System.out.printf("%-48s %8d %10d %12.1f %12.1f %7.2fx%n",
+                    truncate(jar.getFileName().toString()), entries, size(jar) / 1024,
+                    jarFileMicros, readerMicros, jarFileMicros / readerMicros);
+        }
+        System.out.printf("%-48s %8s %10s %12.1f %12.1f %7.2fx%n", "TOTAL", "", "",
+                totalJarFile, totalReader, totalJarFile / totalReader);
+    }
+
+    private static int listWithJarFile(Path jar) throws IOException {
+        int count = 0;
+        long checksum = 0;
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                checksum += entry.getName().length() + entry.getSize() + entry.getCompressedSize() + entry.getCrc();
+                count++;
+            }
+        }
+        return checksum == Long.MIN_VALUE ? -1 : count;
+    }
+
+    private static int listWithReader(Path jar) throws IOException {
+        long[] checksum = {0};
+        int count = CentralDirectoryReader.forEachEntry(jar, (name, size, compressedSize, crc, isDirectory) ->
+                checksum[0] += name.length() + size + compressedSize + crc);
+        return checksum[0] == Long.MIN_VALUE ? -1 : count;
+    }
+
+    private static List<Path> findJars(Path path) throws IOException {
+        if (Files.isRegularFile(path)) {
+            return List.of(path);
+        }
+        if (!Files.isDirectory(path)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(p -> p.toString().endsWith(".jar") && Files.isRegularFile(p)).collect(Collectors.toList());
+        }
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String truncate(String name) {
+        return name.length() <= 48 ? name : name.substring(0, 45) + "...";
+    }
+}
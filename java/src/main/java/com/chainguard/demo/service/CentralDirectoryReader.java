@@ -0,0 +1,238 @@
+package com.chainguard.demo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads JAR entry metadata straight from the ZIP central directory of a memory-mapped file.
+ * Listing needs only names, sizes and CRCs, so this skips JarFile's per-entry objects,
+ * manifest parsing and signature verification; only the pages holding the central
+ * directory are touched. Supports ZIP64 archives.
+ */
+public final class CentralDirectoryReader {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private CentralDirectoryReader() {}
+
+    /**
+     * Receives each entry in central directory order
+     */
+    public interface EntryVisitor {
+        void visit(String name, long size, long compressedSize, long crc, boolean isDirectory);
+    }
+
+    /**
+     * Visit every entry in the archive, returning the number of entries
+     */
+    public static int forEachEntry(Path jar, EntryVisitor visitor) throws IOException {
+        MappedByteBuffer buffer = map(jar);
+        int[] count = {0};
+        walk(buffer, (name, size, compressedSize, crc, isDirectory, method, localHeaderOffset) -> {
+            visitor.visit(name, size, compressedSize, crc, isDirectory);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Read the contents of the entries whose names match, inflating only those entries
+     */
+    public static Map<String, byte[]> readEntries(Path jar, Predicate<String> nameFilter) throws IOException {
+        MappedByteBuffer buffer = map(jar);
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        IOException[] failure = {null};
+        walk(buffer, (name, size, compressedSize, crc, isDirectory, method, localHeaderOffset) -> {
+            if (isDirectory || failure[0] != null || !nameFilter.test(name)) {
+                return;
+            }
+            try {
+                contents.put(name, readData(buffer, method, compressedSize, size, localHeaderOffset));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return contents;
+    }
+
+    private interface RawVisitor {
+        void visit(String name, long size, long compressedSize, long crc, boolean isDirectory, int method, long localHeaderOffset);
+    }
+
+    private static MappedByteBuffer map(Path jar) throws IOException {
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new ZipException("Archive too large to map: " + jar.getFileName());
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static void walk(MappedByteBuffer buffer, RawVisitor visitor) throws IOException {
+        int eocd = findEndOfCentralDirectory(buffer);
+        long entries = buffer.getShort(eocd + 10) & 0xFFFFL;
+        long offset = buffer.getInt(eocd + 16) & 0xFFFFFFFFL;
+
+        // ZIP64: the real counts live in a separate record pointed to by the locator
+        int locator = eocd - 20;
+        if (locator >= 0 && buffer.getInt(locator) == ZIP64_LOCATOR) {
+            long zip64Eocd = buffer.getLong(locator + 8);
+            if (zip64Eocd < 0 || zip64Eocd > buffer.limit() - 56 || buffer.getInt((int) zip64Eocd) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                throw new ZipException("Invalid ZIP64 end of central directory");
+            }
+            entries = buffer.getLong((int) zip64Eocd + 32);
+            offset = buffer.getLong((int) zip64Eocd + 48);
+        }
+
+        if (offset < 0 || offset > buffer.limit()) {
+            throw new ZipException("Invalid central directory offset");
+        }
+
+        int position = (int) offset;
+        for (long i = 0; i < entries; i++) {
+            if (position + 46 > buffer.limit() || buffer.getInt(position) != CENTRAL_HEADER) {
+                throw new ZipException("Invalid central directory header at " + position);
+            }
+            int method = buffer.getShort(position + 10) & 0xFFFF;
+            long crc = buffer.getInt(position + 16) & 0xFFFFFFFFL;
+            long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+            if ((long) position + 46 + nameLength + extraLength + commentLength > buffer.limit()) {
+                throw new ZipException("Central directory header at " + position + " extends past end of archive");
+            }
+
+            byte[] nameBytes = new byte[nameLength];
+            buffer.get(position + 46, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            // Sizes and offset that overflow 32 bits are stored, in this order, in the ZIP64 extra field
+            if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                int extra = position + 46 + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = buffer.getShort(extra) & 0xFFFF;
+                    int length = buffer.getShort(extra + 2) & 0xFFFF;
+                    if (extra + 4 + length > extraEnd) {
+                        throw new ZipException("Invalid extra field in central directory header at " + position);
+                    }
+                    if (id == ZIP64_EXTRA) {
+                        int field = extra + 4;
+                        int needed = (size == 0xFFFFFFFFL ? 8 : 0) + (compressedSize == 0xFFFFFFFFL ? 8 : 0)
+                                + (localHeaderOffset == 0xFFFFFFFFL ? 8 : 0);
+                        if (needed > length) {
+                            throw new ZipException("Truncated ZIP64 extra field in central directory header at " + position);
+                        }
+                        if (size == 0xFFFFFFFFL) {
+                            size = buffer.getLong(field);
+                            field += 8;
+                        }
+                        if (compressedSize == 0xFFFFFFFFL) {
+                            compressedSize = buffer.getLong(field);
+                            field += 8;
+                        }
+                        if (localHeaderOffset == 0xFFFFFFFFL) {
+                            localHeaderOffset = buffer.getLong(field);
+                        }
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+            }
+
+            visitor.visit(name, size, compressedSize, crc, name.endsWith("/"), method, localHeaderOffset);
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private static int findEndOfCentralDirectory(MappedByteBuffer buffer) throws ZipException {
+        int limit = buffer.limit();
+        int stop = Math.max(0, limit - 22 - MAX_COMMENT);
+        for (int position = limit - 22; position >= stop; position--) {
+            if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY
+                    && position + 22 + (buffer.getShort(position + 20) & 0xFFFF) == limit) {
+                return position;
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+
+    private static byte[] readData(MappedByteBuffer buffer, int method, long compressedSize, long size,
+                                   long localHeaderOffset) throws IOException {
+        if (localHeaderOffset < 0 || localHeaderOffset > buffer.limit() - 30L
+                || compressedSize < 0 || compressedSize > Integer.MAX_VALUE || size < 0) {
+            throw new ZipException("Invalid entry sizes or offset at " + localHeaderOffset);
+        }
+        int header = (int) localHeaderOffset;
+        if (buffer.getInt(header) != LOCAL_HEADER) {
+            throw new ZipException("Invalid local header at " + localHeaderOffset);
+        }
+        int dataStart = header + 30 + (buffer.getShort(header + 26) & 0xFFFF) + (buffer.getShort(header + 28) & 0xFFFF);
+        if ((long) dataStart + compressedSize > buffer.limit()) {
+            throw new ZipException("Entry data extends past end of archive");
+        }
+        byte[] compressed = new byte[(int) compressedSize];
+        buffer.get(dataStart, compressed);
+
+        if (method == 0) {
+            if (compressedSize != size) {
+                throw new ZipException("Stored entry size " + compressedSize + " does not match declared size " + size);
+            }
+            return compressed;
+        }
+        if (method != 8) {
+            throw new ZipException("Unsupported compression method " + method);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(size, 1 << 20));
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(chunk, 0, read);
+                if (out.size() > size) {
+                    throw new ZipException("Entry data inflates past its declared size of " + size);
+                }
+            }
+            if (!inflater.finished() || out.size() != size) {
+                throw new ZipException("Truncated entry data: inflated " + out.size() + " of " + size + " bytes");
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt entry data: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -3,18 +3,19 @@ package com.chainguard.demo.service;
 import com.chainguard.demo.model.*;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.security.MessageDigest;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -24,7 +25,14 @@ public class ChainctlService {
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private final String defaultGroup = System.getenv("CHAINCTL_DEFAULT_GROUP");
-    private final String libsDir = System.getenv().getOrDefault("CHAINCTL_LIBS_DIR", "/app/libs");
+    private final LibsCatalog catalog;
+    private final JarDigests jarDigests;
+    private final JarListings jarListings;
+    private final String libsDir;
+
+    // Deadline for a single chainctl process, and for a whole verification run
+    private final long jarTimeoutSeconds = Long.parseLong(System.getenv().getOrDefault("CHAINCTL_JAR_TIMEOUT_SECONDS", "45"));
+    private final long verificationTimeoutSeconds = Long.parseLong(System.getenv().getOrDefault("CHAINCTL_VERIFY_TIMEOUT_SECONDS", "600"));
 
     // Global state for verification progress
     private volatile VerificationProgress progress = new VerificationProgress();
@@ -33,9 +41,43 @@ public class ChainctlService {
     private volatile String normalOutput = "";
     private volatile String verboseOutput = "";
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(10);
+    // Verified results survive restarts, keyed by JAR digest and parent org
+    private final VerificationCache verificationCache = new VerificationCache(
+            Paths.get(System.getenv().getOrDefault("CHAINCTL_CACHE_DIR",
+                    Paths.get(System.getProperty("user.home"), ".cache", "chainguard-demo", "verifications").toString())),
+            Duration.ofHours(Long.parseLong(System.getenv().getOrDefault("CHAINCTL_CACHE_TTL_HOURS", "24"))));
+
+    // Size, mtime, digest and last result of each JAR, for the default libs dir and parent org only
+    private final ConcurrentMap<String, Map<Path, JarState>> jarStates = new ConcurrentHashMap<>();
+
+    // Verification runs in progress, keyed by normalized libs directory and parent org
+    private final ConcurrentMap<String, VerificationRun> inFlight = new ConcurrentHashMap<>();
+
+    // Listeners for runs of the default libs dir, e.g. the dashboard's event stream
+    private final List<VerificationListener> subscribers = new CopyOnWriteArrayList<>();
+
+    // JARs passed to each chainctl process
+    private final int batchSize = Math.max(1, Integer.parseInt(System.getenv().getOrDefault("CHAINCTL_BATCH_SIZE", "1")));
+
+    // Number of chainctl processes running at once adapts between the min and max
+    private final int minConcurrency = Integer.parseInt(System.getenv().getOrDefault("CHAINCTL_MIN_CONCURRENCY", "1"));
+    private final int maxConcurrency = Integer.parseInt(System.getenv().getOrDefault("CHAINCTL_MAX_CONCURRENCY",
+            String.valueOf(Math.max(10, Runtime.getRuntime().availableProcessors() * 2))));
+    private final AdaptiveLimiter limiter = new AdaptiveLimiter(
+            Integer.parseInt(System.getenv().getOrDefault("CHAINCTL_CONCURRENCY", "10")), minConcurrency, maxConcurrency);
+    private final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency));
+    // Two blocking readers per chainctl process (stdout and stderr); never shared with other work,
+    // so a finished process is always drained promptly
+    private final ExecutorService outputReaders = Executors.newFixedThreadPool(2 * Math.max(1, maxConcurrency));
     private volatile boolean tokensInitialized = false;
 
+    public ChainctlService(LibsCatalog catalog, JarDigests jarDigests, JarListings jarListings) {
+        this.catalog = catalog;
+        this.jarDigests = jarDigests;
+        this.jarListings = jarListings;
+        this.libsDir = catalog.getDir().toString();
+    }
+
     /**
      * Initialize chainctl tokens from environment variables.
      * Writes tokens to the cache directory that chainctl expects.
@@ -124,19 +166,61 @@ public class ChainctlService {
      * Get cached verification results or run new verification
      */
     public VerificationResult getVerificationResults() throws Exception {
-        if (cachedResult != null) {
+        if (cachedResult != null && !libsChanged()) {
             return cachedResult;
         }
         return runVerification();
     }
 
+    /**
+     * Whether any JAR in the default libs directory was added, removed or modified
+     * since the last verification, according to the catalog's file attributes.
+     * runVerification then re-verifies just the JARs that changed.
+     */
+    private boolean libsChanged() {
+        Map<Path, JarState> states = jarStates.get(runKey(libsDir, getParentOrg()));
+        if (states == null) {
+            return true;
+        }
+        List<LibsCatalog.Jar> jars = catalog.getJars();
+        if (jars.size() != states.size()) {
+            return true;
+        }
+        for (LibsCatalog.Jar jar : jars) {
+            JarState state = states.get(jar.getPath());
+            if (state == null || !state.matches(jar.getSize(), jar.getModified())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Get current verification progress
      */
     public VerificationProgress getProgress() {
+        progress.setConcurrency(limiter.snapshot());
         return progress;
     }
 
+    /**
+     * Receive events for verifications of the default libs directory. If one is already
+     * running, the listener is attached to it and sees the packages completed so far.
+     */
+    public void subscribe(VerificationListener listener) {
+        synchronized (subscribers) {
+            subscribers.add(listener);
+            VerificationRun running = inFlight.get(runKey(libsDir, getParentOrg()));
+            if (running != null) {
+                running.attach(listener);
+            }
+        }
+    }
+
+    public void unsubscribe(VerificationListener listener) {
+        subscribers.remove(listener);
+    }
+
     /**
      * Get chainctl logs
      */
@@ -149,62 +233,228 @@ public class ChainctlService {
     }
 
     /**
-     * Run chainctl verification on all JARs in parallel
+     * Run chainctl verification on all JARs in parallel.
+     * Concurrent callers attach to the run already in progress for the libs directory
+     * instead of starting another batch of chainctl processes.
      */
     public VerificationResult runVerification() throws Exception {
+        return runVerification(libsDir, getParentOrg(), null);
+    }
+
+    /**
+     * Run chainctl verification for the given libs directory and parent org, reporting
+     * each package to the listener as soon as it is verified. A caller that joins a run
+     * already in progress first receives the packages completed so far.
+     */
+    public VerificationResult runVerification(String dir, String parentOrg, VerificationListener listener) throws Exception {
+        String key = runKey(dir, parentOrg);
+        boolean isDefault = key.equals(runKey(libsDir, getParentOrg()));
+        VerificationRun run = new VerificationRun();
+        VerificationRun running;
+        synchronized (subscribers) {
+            running = inFlight.putIfAbsent(key, run);
+            if (running == null && isDefault) {
+                subscribers.forEach(run::attach);
+            }
+        }
+        if (running != null) {
+            log.info("Verification already running for {}, waiting for it to finish", key);
+            running.attach(listener);
+            return awaitResult(running.future);
+        }
+
+        run.attach(listener);
+        VerificationResult result = null;
+        try {
+            result = verifyAll(dir, parentOrg, run);
+            run.future.complete(result);
+        } catch (Exception e) {
+            run.future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, run);
+            run.finished(result);
+        }
+        return awaitResult(run.future);
+    }
+
+    private String runKey(String dir, String parentOrg) {
+        return Paths.get(dir).toAbsolutePath().normalize() + "|" + parentOrg;
+    }
+
+    private VerificationResult awaitResult(CompletableFuture<VerificationResult> job) throws Exception {
+        try {
+            return job.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private VerificationResult verifyAll(String dir, String parentOrg, VerificationRun run) throws Exception {
         // Ensure chainctl tokens are written to cache before running verification
         setupChainctlTokens();
 
-        String parentOrg = getParentOrg();
         if (parentOrg == null || parentOrg.isEmpty()) {
             VerificationResult result = new VerificationResult();
             result.setError("CHAINCTL_DEFAULT_GROUP not set. Please run: chainctl config set default.group <your.chainguardorg.dev> and rebuild.");
             return result;
         }
 
-        Path libsPath = Paths.get(libsDir);
+        Path libsPath = Paths.get(dir);
         if (!Files.exists(libsPath)) {
             VerificationResult result = new VerificationResult();
-            result.setError("Libs directory not found: " + libsDir);
+            result.setError("Libs directory not found: " + dir);
             return result;
         }
 
-        List<Path> jarFiles = Files.list(libsPath)
-                .filter(p -> p.toString().endsWith(".jar"))
-                .sorted()
-                .collect(Collectors.toList());
+        List<Path> jarFiles;
+        try (var stream = Files.list(libsPath)) {
+            jarFiles = stream
+                    .filter(p -> p.toString().endsWith(".jar"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
 
         if (jarFiles.isEmpty()) {
             VerificationResult result = new VerificationResult();
-            result.setError("No JAR files found in " + libsDir);
+            result.setError("No JAR files found in " + dir);
             return result;
         }
 
+        // Only the default libs dir and org drive the dashboard's progress, logs and cache
+        boolean isDefault = runKey(dir, parentOrg).equals(runKey(libsDir, getParentOrg()));
+
         int total = jarFiles.size();
-        log.info("Running parallel verification on {} JARs (max 10 concurrent)", total);
+        log.info("Running parallel verification on {} JARs in {} ({} per process, {} concurrent)",
+                total, dir, batchSize, limiter.snapshot().getLimit());
 
         // Initialize progress
-        progress = new VerificationProgress(0, total, "running");
+        run.started(total);
+        if (isDefault) {
+            progress = new VerificationProgress(0, total, "running");
+        }
 
-        // Run verifications in parallel
-        List<Future<JsonNode>> futures = new ArrayList<>();
+        // Reuse results for JARs unchanged since the last run, then try the on-disk cache
+        String key = runKey(dir, parentOrg);
+        Map<Path, JarState> previous = jarStates.getOrDefault(key, Map.of());
+        Map<Path, JarState> current = new HashMap<>();
+        List<JsonNode> allResults = new ArrayList<>();
+        Map<Path, JarState> toVerifyStates = new HashMap<>();
+        List<Path> toVerify = new ArrayList<>();
+        int unchanged = 0;
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        List<Path> toHash = new ArrayList<>();
         for (Path jarPath : jarFiles) {
-            futures.add(executor.submit(() -> verifySingleJar(jarPath, parentOrg)));
+            BasicFileAttributes attrs = Files.readAttributes(jarPath, BasicFileAttributes.class);
+            attributes.put(jarPath, attrs);
+            if (verificationCache.isEnabled() && !reusable(previous.get(jarPath), attrs)) {
+                toHash.add(jarPath);
+            }
         }
 
-        // Collect results
-        List<JsonNode> allResults = new ArrayList<>();
-        for (int i = 0; i < futures.size(); i++) {
+        // Changed JARs are hashed in parallel on the digest pool before looking them up in the cache
+        Map<Path, String> digests = new HashMap<>();
+        List<Map<String, String>> hashed = jarDigests.digestAll(toHash, List.of("sha256"));
+        for (int i = 0; i < toHash.size(); i++) {
+            Map<String, String> hash = hashed.get(i);
+            if (hash.containsKey("error")) {
+                log.warn("Failed to hash {}: {}", toHash.get(i).getFileName(), hash.get("error"));
+            } else {
+                digests.put(toHash.get(i), hash.get("sha256"));
+            }
+        }
+
+        for (Path jarPath : jarFiles) {
+            BasicFileAttributes attrs = attributes.get(jarPath);
+            long size = attrs.size();
+            long modified = attrs.lastModifiedTime().toMillis();
+
+            JarState prev = previous.get(jarPath);
+            if (reusable(prev, attrs)) {
+                current.put(jarPath, prev);
+                allResults.add(recordCompletion(run, isDefault, total, jarPath, prev.result));
+                unchanged++;
+                continue;
+            }
+
+            String digest = digests.get(jarPath);
+            JsonNode cached = digest != null ? verificationCache.get(digest, parentOrg) : null;
+            if (cached != null) {
+                JsonNode result = withArtifactPath(cached, jarPath);
+                current.put(jarPath, new JarState(size, modified, digest, result));
+                allResults.add(recordCompletion(run, isDefault, total, jarPath, result));
+            } else {
+                toVerifyStates.put(jarPath, new JarState(size, modified, digest, null));
+                toVerify.add(jarPath);
+            }
+        }
+        if (toVerify.size() < total) {
+            log.info("{} JARs unchanged, {} served from verification cache, {} to verify",
+                    unchanged, total - unchanged - toVerify.size(), toVerify.size());
+        }
+
+        // Run verifications in parallel, batchSize JARs per chainctl process
+        CompletionService<List<JsonNode>> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<List<JsonNode>>, List<Path>> pending = new HashMap<>();
+        for (int i = 0; i < toVerify.size(); i += batchSize) {
+            List<Path> batch = toVerify.subList(i, Math.min(i + batchSize, toVerify.size()));
+            pending.put(completionService.submit(() -> verifyBatchLimited(batch, parentOrg)), batch);
+        }
+
+        // Collect results in completion order, so one slow JAR does not hold up the others
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(verificationTimeoutSeconds);
+        while (!pending.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            Future<List<JsonNode>> future = remaining > 0 ? completionService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (future == null) {
+                log.error("Verification did not finish within {} seconds, cancelling {} remaining batches",
+                        verificationTimeoutSeconds, pending.size());
+                for (Map.Entry<Future<List<JsonNode>>, List<Path>> entry : pending.entrySet()) {
+                    entry.getKey().cancel(true);
+                    for (Path jarPath : entry.getValue()) {
+                        JsonNode result = errorResult(jarPath,
+                                "Verification did not finish within " + verificationTimeoutSeconds + " seconds");
+                        current.put(jarPath, toVerifyStates.get(jarPath).withResult(result));
+                        allResults.add(recordCompletion(run, isDefault, total, jarPath, result));
+                    }
+                }
+                break;
+            }
+
+            List<Path> batch = pending.remove(future);
+            List<JsonNode> results;
             try {
-                JsonNode result = futures.get(i).get(60, TimeUnit.SECONDS);
-                allResults.add(result);
-                synchronized (this) {
-                    progress.setCompleted(progress.getCompleted() + 1);
+                results = future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Verification failed for {} JAR(s) starting at {}: {}", batch.size(), batch.get(0).getFileName(), cause.getMessage());
+                results = new ArrayList<>();
+                for (Path jarPath : batch) {
+                    results.add(errorResult(jarPath, cause.getMessage()));
                 }
-                log.info("Verified {}/{}: {}", progress.getCompleted(), total, jarFiles.get(i).getFileName());
-            } catch (Exception e) {
-                log.error("Verification failed for {}: {}", jarFiles.get(i).getFileName(), e.getMessage());
             }
+            for (int i = 0; i < batch.size(); i++) {
+                Path jarPath = batch.get(i);
+                JsonNode result = results.get(i);
+                JarState state = toVerifyStates.get(jarPath).withResult(result);
+                if (state.digest != null && !result.has("error")) {
+                    verificationCache.put(state.digest, parentOrg, result);
+                }
+                current.put(jarPath, state);
+                allResults.add(recordCompletion(run, isDefault, total, jarPath, result));
+            }
+        }
+
+        // Replacing the whole map drops JARs that were removed from the directory. Other dirs and
+        // orgs (e.g. background jobs) rely on the digest-keyed disk cache instead of piling up here.
+        if (isDefault) {
+            jarStates.put(key, current);
+            jarStates.keySet().removeIf(other -> !other.equals(key));
+        }
+
+        VerificationResult merged = mergeVerificationResults(allResults);
+        if (!isDefault) {
+            return merged;
         }
 
         progress.setStatus("complete");
@@ -213,26 +463,83 @@ public class ChainctlService {
         StringBuilder cmdHeader = new StringBuilder();
         cmdHeader.append("$ chainctl libraries verify -o json --detailed --parent ")
                  .append(parentOrg)
-                 .append(" /app/libs/*.jar\n\n");
+                 .append(" ")
+                 .append(dir)
+                 .append("/*.jar\n\n");
         normalOutput = cmdHeader + objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(allResults);
         lastRunTimestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss yyyy"));
 
-        // Merge and parse results
-        VerificationResult merged = mergeVerificationResults(allResults);
         cachedResult = merged;
         return merged;
     }
 
     /**
-     * Verify a single JAR file
+     * Whether the last run's result still applies: the JAR is unchanged and was verified
      */
-    private JsonNode verifySingleJar(Path jarPath, String parentOrg) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder(
+    private static boolean reusable(JarState prev, BasicFileAttributes attrs) {
+        return prev != null && prev.matches(attrs.size(), attrs.lastModifiedTime().toMillis()) && !prev.result.has("error");
+    }
+
+    private JsonNode recordCompletion(VerificationRun run, boolean isDefault, int total, Path jarPath, JsonNode result) {
+        int completed = run.completed(toPackageInfo(result));
+        if (isDefault) {
+            progress.setCompleted(completed);
+        }
+        log.info("Verified {}/{}: {}", completed, total, jarPath.getFileName());
+        return result;
+    }
+
+    /**
+     * Point a cached result at the JAR's current location, which may differ from
+     * where it was when the result was cached
+     */
+    private JsonNode withArtifactPath(JsonNode cached, Path jarPath) {
+        if (!cached.isObject()) {
+            return cached;
+        }
+        ObjectNode result = ((ObjectNode) cached).deepCopy();
+        result.put("artifact", jarPath.toString());
+        return result;
+    }
+
+    private JsonNode errorResult(Path jarPath, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message != null ? message : "Unknown error");
+        error.put("path", jarPath.toString());
+        return objectMapper.valueToTree(error);
+    }
+
+    /**
+     * Run a batch under the adaptive limiter, reporting process latency and whether
+     * chainctl succeeded so the limit can grow or back off.
+     */
+    private List<JsonNode> verifyBatchLimited(List<Path> jarPaths, String parentOrg) throws Exception {
+        long ticket = limiter.acquire();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<JsonNode> results = verifyBatch(jarPaths, parentOrg);
+            success = results.stream().noneMatch(result -> result.has("error"));
+            return results;
+        } finally {
+            limiter.release(ticket, jarPaths.size(), System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Verify a batch of JAR files with a single chainctl process.
+     * Returns one result per JAR, in the same order as the input.
+     */
+    private List<JsonNode> verifyBatch(List<Path> jarPaths, String parentOrg) throws Exception {
+        List<String> command = new ArrayList<>(List.of(
                 "chainctl", "libraries", "verify",
                 "-o", "json", "--detailed",
-                "--parent", parentOrg,
-                jarPath.toString()
-        );
+                "--parent", parentOrg
+        ));
+        for (Path jarPath : jarPaths) {
+            command.add(jarPath.toString());
+        }
+        ProcessBuilder pb = new ProcessBuilder(command);
 
         Process process = pb.start();
 
@@ -243,20 +550,30 @@ public class ChainctlService {
             } catch (IOException e) {
                 return "";
             }
-        });
+        }, outputReaders);
         CompletableFuture<String> stderrFuture = CompletableFuture.supplyAsync(() -> {
             try {
                 return readErrorOutput(process);
             } catch (IOException e) {
                 return "";
             }
-        });
+        }, outputReaders);
 
-        boolean finished = process.waitFor(45, TimeUnit.SECONDS);
+        // A batch gets the per-JAR timeout for each JAR it contains
+        long timeoutSeconds = jarTimeoutSeconds * jarPaths.size();
+        boolean finished;
+        try {
+            finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Cancelled by the overall deadline
+            process.destroyForcibly();
+            throw e;
+        }
 
         if (!finished) {
             process.destroyForcibly();
-            throw new TimeoutException("chainctl verification timed out after 45 seconds for: " + jarPath.getFileName());
+            throw new TimeoutException("chainctl verification timed out after " + timeoutSeconds + " seconds for: "
+                    + jarPaths.stream().map(p -> p.getFileName().toString()).collect(Collectors.joining(", ")));
         }
 
         String stdout = stdoutFuture.get(5, TimeUnit.SECONDS);
@@ -264,14 +581,42 @@ public class ChainctlService {
         int exitCode = process.exitValue();
 
         if (exitCode == 0 && !stdout.isEmpty()) {
-            return objectMapper.readTree(stdout);
-        } else {
-            // Return error object
-            Map<String, String> error = new HashMap<>();
-            error.put("error", stderr.isEmpty() ? "Unknown error" : stderr);
-            error.put("path", jarPath.toString());
-            return objectMapper.valueToTree(error);
+            return demultiplex(jarPaths, objectMapper.readTree(stdout));
+        }
+        // Return error objects
+        List<JsonNode> results = new ArrayList<>();
+        for (Path jarPath : jarPaths) {
+            results.add(errorResult(jarPath, stderr.isEmpty() ? "Unknown error" : stderr));
+        }
+        return results;
+    }
+
+    /**
+     * Match chainctl output (a single object, or an array when several JARs were passed)
+     * back to the JARs that were verified, by the "artifact" path it reports.
+     */
+    private List<JsonNode> demultiplex(List<Path> jarPaths, JsonNode output) {
+        if (!output.isArray()) {
+            if (jarPaths.size() == 1) {
+                return List.of(output);
+            }
+            output = objectMapper.createArrayNode().add(output);
+        }
+
+        Map<String, JsonNode> byFilename = new HashMap<>();
+        for (JsonNode result : output) {
+            String artifact = result.path("artifact").asText(result.path("path").asText(""));
+            if (!artifact.isEmpty()) {
+                byFilename.put(Paths.get(artifact).getFileName().toString(), result);
+            }
+        }
+
+        List<JsonNode> results = new ArrayList<>();
+        for (Path jarPath : jarPaths) {
+            JsonNode result = byFilename.get(jarPath.getFileName().toString());
+            results.add(result != null ? result : errorResult(jarPath, "No result from chainctl for " + jarPath.getFileName()));
         }
+        return results;
     }
 
     /**
@@ -282,20 +627,17 @@ public class ChainctlService {
         double totalCoverage = 0;
 
         for (JsonNode result : results) {
-            if (result.has("error")) {
-                PackageInfo pkg = new PackageInfo();
-                pkg.setFilename(result.path("path").asText("unknown"));
-                pkg.setVerified(false);
-                pkg.setDetails(result.path("error").asText("Unknown error"));
-                merged.addPackage(pkg);
-            } else if (result.has("artifact")) {
-                // Single-package result format
-                PackageInfo pkg = parseArtifactResult(result);
+            PackageInfo pkg = toPackageInfo(result);
+            if (pkg != null) {
                 merged.addPackage(pkg);
+            }
+            if (!result.has("error") && result.has("artifact")) {
                 totalCoverage += result.path("artifactVerificationCoverage").asDouble(0);
             }
         }
 
+        // Results arrive in completion order; keep the listing stable for the dashboard
+        merged.getPackages().sort(Comparator.comparing(PackageInfo::getFilename, Comparator.nullsLast(Comparator.naturalOrder())));
         merged.setTotalCount(merged.getPackages().size());
         merged.setVerifiedCount((int) merged.getPackages().stream().filter(PackageInfo::isVerified).count());
 
@@ -307,6 +649,23 @@ public class ChainctlService {
         return merged;
     }
 
+    /**
+     * Convert one chainctl result (or error object) into a package entry
+     */
+    private PackageInfo toPackageInfo(JsonNode result) {
+        if (result.has("error")) {
+            PackageInfo pkg = new PackageInfo();
+            pkg.setFilename(result.path("path").asText("unknown"));
+            pkg.setVerified(false);
+            pkg.setDetails(result.path("error").asText("Unknown error"));
+            return pkg;
+        } else if (result.has("artifact")) {
+            // Single-package result format
+            return parseArtifactResult(result);
+        }
+        return null;
+    }
+
     /**
      * Parse a single artifact verification result
      */
@@ -361,8 +720,7 @@ public class ChainctlService {
         String name = filename.substring(0, filename.length() - 4);
 
         // Try to find version pattern (numbers with dots, optionally followed by -classifier)
-        Pattern versionPattern = Pattern.compile("^(.+)-(\\d+\\.\\d+[\\d.]*(?:-[A-Za-z0-9]+)?)$");
-        Matcher matcher = versionPattern.matcher(name);
+        Matcher matcher = LibsCatalog.JAR_FILENAME.matcher(name);
 
         if (matcher.matches()) {
             pkg.setArtifactId(matcher.group(1));
@@ -381,6 +739,47 @@ public class ChainctlService {
      * Get JAR file contents
      */
     public JarContents getJarContents(String artifactId, String version) {
+        JarContents contents = listJar(artifactId, version);
+        if (contents.getError() == null) {
+            contents.setTree(FileTree.of(contents.getFiles()));
+        }
+        return contents;
+    }
+
+    /**
+     * Get one page of JAR entries. With a path, only the entries directly under that
+     * directory are listed (subdirectories appear once, as directory entries); without one,
+     * the flat list of all entries is paged. The nested tree is not included.
+     */
+    public JarContents getJarContents(String artifactId, String version, String path, int offset, int limit) {
+        JarContents contents = listJar(artifactId, version);
+        if (contents.getError() != null) {
+            return contents;
+        }
+
+        List<JarContents.FileInfo> listing = path != null ? directoryLevel(contents.getFiles(), path) : contents.getFiles();
+        int from = Math.min(Math.max(offset, 0), listing.size());
+        int to = Math.min(from + Math.max(limit, 0), listing.size());
+
+        JarContents page = new JarContents();
+        page.setGroupId(contents.getGroupId());
+        page.setArtifactId(contents.getArtifactId());
+        page.setVersion(contents.getVersion());
+        page.setJarFile(contents.getJarFile());
+        page.setTotalFiles(contents.getTotalFiles());
+        page.setTotalSize(contents.getTotalSize());
+        page.setPath(path);
+        page.setOffset(from);
+        page.setLimit(limit);
+        page.setMatchingFiles(listing.size());
+        page.setFiles(new ArrayList<>(listing.subList(from, to)));
+        return page;
+    }
+
+    /**
+     * Read the flat entry list of a JAR
+     */
+    private JarContents listJar(String artifactId, String version) {
         JarContents contents = new JarContents();
         contents.setArtifactId(artifactId);
         contents.setVersion(version);
@@ -394,28 +793,11 @@ public class ChainctlService {
 
             contents.setJarFile(jarPath.getFileName().toString());
 
-            try (JarFile jarFile = new JarFile(jarPath.toFile())) {
-                List<JarContents.FileInfo> files = new ArrayList<>();
-                long totalSize = 0;
-
-                Enumeration<JarEntry> entries = jarFile.entries();
-                while (entries.hasMoreElements()) {
-                    JarEntry entry = entries.nextElement();
-                    JarContents.FileInfo fileInfo = new JarContents.FileInfo(
-                            entry.getName(),
-                            entry.getSize(),
-                            entry.getCompressedSize(),
-                            entry.isDirectory()
-                    );
-                    files.add(fileInfo);
-                    totalSize += entry.getSize();
-                }
-
-                contents.setFiles(files);
-                contents.setTotalFiles(files.size());
-                contents.setTotalSize(totalSize);
-                contents.setTree(buildFileTree(files));
-            }
+            // The listing is shared with the cache; pages copy out of it and the tree only reads it
+            JarListings.Listing listing = jarListings.get(jarPath);
+            contents.setFiles(listing.getFiles());
+            contents.setTotalFiles(listing.getFiles().size());
+            contents.setTotalSize(listing.getTotalSize());
         } catch (Exception e) {
             contents.setError(e.getMessage());
         }
@@ -423,6 +805,42 @@ public class ChainctlService {
         return contents;
     }
 
+    /**
+     * Entries directly under a directory, directories first, then by name.
+     * Directories that only exist implicitly in entry paths are synthesized, with the
+     * total size of the files below them.
+     */
+    private List<JarContents.FileInfo> directoryLevel(List<JarContents.FileInfo> files, String path) {
+        String prefix = path.isEmpty() || path.endsWith("/") ? path : path + "/";
+        Map<String, JarContents.FileInfo> children = new HashMap<>();
+
+        for (JarContents.FileInfo file : files) {
+            String name = file.getPath();
+            if (!name.startsWith(prefix) || name.length() == prefix.length()) {
+                continue;
+            }
+            int slash = name.indexOf('/', prefix.length());
+            if (slash < 0) {
+                children.put(name, file);
+                continue;
+            }
+            String dirPath = name.substring(0, slash + 1);
+            JarContents.FileInfo dir = children.get(dirPath);
+            if (dir == null) {
+                dir = new JarContents.FileInfo(dirPath, 0, 0, true);
+                children.put(dirPath, dir);
+            }
+            if (!file.isDir()) {
+                dir.setSize(dir.getSize() + file.getSize());
+                dir.setCompressedSize(dir.getCompressedSize() + file.getCompressedSize());
+            }
+        }
+
+        List<JarContents.FileInfo> level = new ArrayList<>(children.values());
+        level.sort(Comparator.comparing((JarContents.FileInfo f) -> !f.isDir()).thenComparing(JarContents.FileInfo::getPath));
+        return level;
+    }
+
     /**
      * Calculate SHA256 hash of a JAR file for Rekor lookups
      */
@@ -434,18 +852,7 @@ public class ChainctlService {
                 return null;
             }
 
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] fileBytes = Files.readAllBytes(jarPath);
-            byte[] hashBytes = digest.digest(fileBytes);
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-
-            String sha256 = hexString.toString();
+            String sha256 = jarDigests.sha256(jarPath);
             result.put("sha256", sha256);
             result.put("rekor_url", "https://search.sigstore.dev/?hash=" + sha256);
         } catch (Exception e) {
@@ -458,73 +865,22 @@ public class ChainctlService {
     /**
      * Find JAR file by artifactId and version
      */
-    private Path findJarFile(String artifactId, String version) throws IOException {
-        Path libsPath = Paths.get(libsDir);
-        if (!Files.exists(libsPath)) {
-            return null;
-        }
-
-        String pattern = artifactId + "-" + version + "*.jar";
-        try (var stream = Files.list(libsPath)) {
-            return stream
-                    .filter(p -> {
-                        String name = p.getFileName().toString();
-                        return name.startsWith(artifactId + "-" + version) && name.endsWith(".jar");
-                    })
-                    .findFirst()
-                    .orElse(null);
-        }
+    private Path findJarFile(String artifactId, String version) {
+        LibsCatalog.Jar jar = catalog.find(artifactId, version);
+        return jar != null ? jar.getPath() : null;
     }
 
     /**
-     * Build hierarchical tree structure from flat file list
+     * Default libs directory verified by the dashboard
      */
-    private Map<String, Object> buildFileTree(List<JarContents.FileInfo> files) {
-        Map<String, Object> tree = new LinkedHashMap<>();
-
-        for (JarContents.FileInfo file : files) {
-            String[] parts = file.getPath().split("/");
-            Map<String, Object> current = tree;
-
-            for (int i = 0; i < parts.length; i++) {
-                String part = parts[i];
-                if (part.isEmpty()) continue;
-
-                if (i == parts.length - 1) {
-                    // Leaf node
-                    Map<String, Object> leaf = new LinkedHashMap<>();
-                    leaf.put("type", file.isDir() ? "dir" : "file");
-                    leaf.put("size", file.getSize());
-                    leaf.put("path", file.getPath());
-                    current.put(part, leaf);
-                } else {
-                    // Directory node
-                    if (!current.containsKey(part)) {
-                        Map<String, Object> dir = new LinkedHashMap<>();
-                        dir.put("type", "dir");
-                        dir.put("children", new LinkedHashMap<String, Object>());
-                        current.put(part, dir);
-                    }
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> dir = (Map<String, Object>) current.get(part);
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> children = (Map<String, Object>) dir.get("children");
-                    if (children == null) {
-                        children = new LinkedHashMap<>();
-                        dir.put("children", children);
-                    }
-                    current = children;
-                }
-            }
-        }
-
-        return tree;
+    public String getLibsDir() {
+        return libsDir;
     }
 
     /**
      * Get parent organization from environment
      */
-    private String getParentOrg() {
+    public String getParentOrg() {
         if (defaultGroup != null && !defaultGroup.isEmpty()) {
             return defaultGroup;
         }
@@ -532,14 +888,96 @@ public class ChainctlService {
     }
 
     private String readProcessOutput(Process process) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
             return reader.lines().collect(Collectors.joining("\n"));
         }
     }
 
     private String readErrorOutput(Process process) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
             return reader.lines().collect(Collectors.joining("\n"));
         }
     }
+
+    /**
+     * A verification in progress: its result future plus the packages completed so far,
+     * which are replayed to listeners that attach late.
+     */
+    private static final class VerificationRun {
+        private final CompletableFuture<VerificationResult> future = new CompletableFuture<>();
+        private final List<VerificationListener> listeners = new ArrayList<>();
+        private final List<PackageInfo> packages = new ArrayList<>();
+        private int completed;
+        private int total;
+        private boolean done;
+        private VerificationResult result;
+
+        synchronized void attach(VerificationListener listener) {
+            if (listener == null) {
+                return;
+            }
+            listeners.add(listener);
+            if (total > 0) {
+                listener.onStart(total);
+            }
+            int replayed = 0;
+            for (PackageInfo pkg : packages) {
+                listener.onPackage(pkg, ++replayed, total);
+            }
+            if (done) {
+                listener.onComplete(result);
+            }
+        }
+
+        synchronized void started(int total) {
+            this.total = total;
+            for (VerificationListener listener : listeners) {
+                listener.onStart(total);
+            }
+        }
+
+        synchronized int completed(PackageInfo pkg) {
+            completed++;
+            if (pkg != null) {
+                packages.add(pkg);
+                for (VerificationListener listener : listeners) {
+                    listener.onPackage(pkg, completed, total);
+                }
+            }
+            return completed;
+        }
+
+        synchronized void finished(VerificationResult result) {
+            this.done = true;
+            this.result = result;
+            for (VerificationListener listener : listeners) {
+                listener.onComplete(result);
+            }
+        }
+    }
+
+    /**
+     * What was verified for one JAR: the file attributes it had, its digest, and the result
+     */
+    private static final class JarState {
+        private final long size;
+        private final long modified;
+        private final String digest;
+        private final JsonNode result;
+
+        JarState(long size, long modified, String digest, JsonNode result) {
+            this.size = size;
+            this.modified = modified;
+            this.digest = digest;
+            this.result = result;
+        }
+
+        boolean matches(long size, long modified) {
+            return this.size == size && this.modified == modified;
+        }
+
+        JarState withResult(JsonNode result) {
+            return new JarState(size, modified, digest, result);
+        }
+    }
 }
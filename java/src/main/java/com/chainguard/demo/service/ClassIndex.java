@@ -0,0 +1,203 @@
+package com.chainguard.demo.service;
+
+import com.chainguard.demo.model.ClassSearchResult;
+import com.chainguard.demo.model.JarContents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index from class and resource paths to the JARs in the libs directory that
+ * contain them, for questions like "which dependency provides this class". Entry paths
+ * are kept in a sorted map so exact and prefix lookups are a tree search. The index is
+ * updated after each catalog rebuild, re-reading only JARs that were added or changed.
+ */
+public class ClassIndex {
+    private static final Logger log = LoggerFactory.getLogger(ClassIndex.class);
+
+    private final LibsCatalog catalog;
+    private final JarListings jarListings;
+    private final ConcurrentNavigableMap<String, List<LibsCatalog.Jar>> index = new ConcurrentSkipListMap<>();
+
+    // Entry paths of each indexed JAR, so they can be removed when it changes or goes away
+    private final Map<Path, Indexed> indexed = new HashMap<>();
+    private volatile int indexedJars;
+    private volatile long indexedEntries;
+
+    // Updates run one at a time, off the catalog's watcher thread; at most one is queued
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "class-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Semaphore queued = new Semaphore(1);
+    private volatile boolean indexing;
+
+    public ClassIndex(LibsCatalog catalog, JarListings jarListings) {
+        this.catalog = catalog;
+        this.jarListings = jarListings;
+    }
+
+    /**
+     * Bring the index up to date with the catalog in the background
+     */
+    public void update() {
+        if (!queued.tryAcquire()) {
+            // An update that has not started yet will see the latest catalog
+            return;
+        }
+        indexing = true;
+        updater.execute(() -> {
+            queued.release();
+            try {
+                apply(catalog.getJars());
+            } catch (RuntimeException e) {
+                log.warn("Class index update failed: {}", e.getMessage());
+            } finally {
+                indexing = queued.availablePermits() == 0;
+            }
+        });
+    }
+
+    /**
+     * Entries matching a class name (dotted, e.g. com.example.Foo) or entry path
+     * (e.g. com/example/Foo.class, META-INF/services/...), exactly or by prefix
+     */
+    public ClassSearchResult search(String name, boolean prefix, int limit) {
+        ClassSearchResult result = new ClassSearchResult();
+        result.setName(name);
+        result.setMatch(prefix ? "prefix" : "exact");
+        result.setIndexedJars(indexedJars);
+        result.setIndexedEntries(indexedEntries);
+        result.setIndexing(indexing);
+
+        // A name without slashes may be a dotted class name or a top-level resource
+        Set<String> candidates = new LinkedHashSet<>();
+        candidates.add(name);
+        if (name.indexOf('/') < 0) {
+            String path = name.replace('.', '/');
+            candidates.add(prefix ? path : path + ".class");
+        }
+
+        Map<String, List<LibsCatalog.Jar>> matches = new TreeMap<>();
+        for (String candidate : candidates) {
+            if (!prefix) {
+                List<LibsCatalog.Jar> jars = index.get(candidate);
+                if (jars != null) {
+                    matches.put(candidate, jars);
+                }
+                continue;
+            }
+            for (Map.Entry<String, List<LibsCatalog.Jar>> entry : index.tailMap(candidate).entrySet()) {
+                if (!entry.getKey().startsWith(candidate) || matches.size() > limit) {
+                    break;
+                }
+                matches.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Map.Entry<String, List<LibsCatalog.Jar>> entry : matches.entrySet()) {
+            if (result.getResults().size() == limit) {
+                result.setTruncated(true);
+                break;
+            }
+            String path = entry.getKey();
+            String className = path.endsWith(".class")
+                    ? path.substring(0, path.length() - ".class".length()).replace('/', '.')
+                    : null;
+            List<String> jars = entry.getValue().stream().map(LibsCatalog.Jar::getFileName).collect(Collectors.toList());
+            result.getResults().add(new ClassSearchResult.Location(path, className, jars));
+        }
+        return result;
+    }
+
+    private void apply(List<LibsCatalog.Jar> jars) {
+        long start = System.nanoTime();
+        Map<Path, LibsCatalog.Jar> current = new HashMap<>();
+        for (LibsCatalog.Jar jar : jars) {
+            current.put(jar.getPath(), jar);
+        }
+
+        // The catalog reuses Jar objects for files whose size and mtime are unchanged
+        Set<Path> removed = new HashSet<>();
+        for (Map.Entry<Path, Indexed> entry : indexed.entrySet()) {
+            if (current.get(entry.getKey()) != entry.getValue().jar) {
+                removed.add(entry.getKey());
+            }
+        }
+        List<LibsCatalog.Jar> added = jars.stream()
+                .filter(jar -> !indexed.containsKey(jar.getPath()) || removed.contains(jar.getPath()))
+                .collect(Collectors.toList());
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        for (Path path : removed) {
+            Indexed old = indexed.remove(path);
+            for (String name : old.names) {
+                index.computeIfPresent(name, (key, holders) -> without(holders, old.jar));
+            }
+        }
+
+        // Reading entry lists is the expensive part, so it runs in parallel
+        List<Indexed> read = added.parallelStream()
+                .map(this::read)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        for (Indexed jar : read) {
+            for (String name : jar.names) {
+                index.merge(name, List.of(jar.jar), ClassIndex::with);
+            }
+            indexed.put(jar.jar.getPath(), jar);
+        }
+
+        indexedJars = indexed.size();
+        indexedEntries = indexed.values().stream().mapToLong(jar -> jar.names.length).sum();
+        log.info("Class index updated in {} ms: {} JARs read, {} dropped, {} entries",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), read.size(),
+                removed.stream().filter(path -> !current.containsKey(path)).count(), indexedEntries);
+    }
+
+    private Indexed read(LibsCatalog.Jar jar) {
+        try {
+            List<JarContents.FileInfo> files = jarListings.get(jar.getPath()).getFiles();
+            String[] names = files.stream()
+                    .filter(file -> !file.isDir())
+                    .map(JarContents.FileInfo::getPath)
+                    .distinct()
+                    .toArray(String[]::new);
+            return new Indexed(jar, names);
+        } catch (IOException e) {
+            log.warn("Failed to index {}: {}", jar.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<LibsCatalog.Jar> with(List<LibsCatalog.Jar> holders, List<LibsCatalog.Jar> added) {
+        List<LibsCatalog.Jar> merged = new ArrayList<>(holders);
+        merged.addAll(added);
+        merged.sort(Comparator.comparing(LibsCatalog.Jar::getFileName));
+        return Collections.unmodifiableList(merged);
+    }
+
+    private static List<LibsCatalog.Jar> without(List<LibsCatalog.Jar> holders, LibsCatalog.Jar jar) {
+        List<LibsCatalog.Jar> remaining = new ArrayList<>(holders);
+        remaining.remove(jar);
+        return remaining.isEmpty() ? null : Collections.unmodifiableList(remaining);
+    }
+
+    private static class Indexed {
+        final LibsCatalog.Jar jar;
+        final String[] names;
+
+        Indexed(LibsCatalog.Jar jar, String[] names) {
+            this.jar = jar;
+            this.names = names;
+        }
+    }
+}
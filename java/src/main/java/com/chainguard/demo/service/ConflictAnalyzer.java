@@ -0,0 +1,220 @@
+package com.chainguard.demo.service;
+
+import com.chainguard.demo.model.ConflictReport;
+import com.chainguard.demo.model.JarContents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Finds classpath conflicts across the JARs in the libs directory: duplicate class and
+ * resource paths, duplicates whose contents differ (by CRC) and split packages. JARs are
+ * scanned in parallel on a fork-join pool, and the report is cached until the catalog
+ * is rebuilt.
+ */
+public class ConflictAnalyzer {
+    private static final Logger log = LoggerFactory.getLogger(ConflictAnalyzer.class);
+
+    // JARs scanned by one task before it stops splitting
+    private static final int JARS_PER_TASK = 4;
+
+    // Multi-release classes belong to the same package as their base version
+    private static final Pattern VERSIONED = Pattern.compile("^META-INF/versions/\\d+/");
+
+    private final LibsCatalog catalog;
+    private final JarListings jarListings;
+    private final ForkJoinPool pool = new ForkJoinPool(Integer.parseInt(System.getenv().getOrDefault(
+            "CONFLICT_ANALYZER_THREADS", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+    private volatile ConflictReport cached;
+
+    public ConflictAnalyzer(LibsCatalog catalog, JarListings jarListings) {
+        this.catalog = catalog;
+        this.jarListings = jarListings;
+    }
+
+    /**
+     * Conflicts for the current catalog, from cache unless the catalog has been rebuilt
+     */
+    public synchronized ConflictReport analyze() {
+        long generation = catalog.getGeneration();
+        ConflictReport report = cached;
+        if (report != null && report.getGeneration() == generation) {
+            return report;
+        }
+        report = pool.invoke(ForkJoinTask.adapt(() -> scan(catalog.getJars(), generation)));
+        cached = report;
+        return report;
+    }
+
+    private ConflictReport scan(List<LibsCatalog.Jar> jars, long generation) {
+        long start = System.nanoTime();
+        Scan scan = new Scan(jarListings, jars, 0, jars.size());
+        scan.invoke();
+
+        ConflictReport report = new ConflictReport();
+        report.setGeneration(generation);
+        report.setJarsScanned(jars.size() - scan.errors.size());
+        report.setEntriesScanned(scan.entries.sum());
+        report.setErrors(new ArrayList<>(scan.errors));
+
+        // Runs in the pool, so the parallel streams do too
+        List<ConflictReport.Duplicate> duplicates = scan.occurrences.entrySet().parallelStream()
+                .filter(entry -> entry.getValue().next != null)
+                .map(entry -> toDuplicate(entry.getKey(), entry.getValue()))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(ConflictReport.Duplicate::getPath))
+                .collect(Collectors.toList());
+        report.setDuplicates(duplicates.stream().filter(d -> d.getDistinctContents() == 1).collect(Collectors.toList()));
+        report.setMismatches(duplicates.stream().filter(d -> d.getDistinctContents() > 1).collect(Collectors.toList()));
+
+        report.setSplitPackages(scan.packages.entrySet().parallelStream()
+                .filter(entry -> entry.getValue().size() > 1)
+                .map(entry -> new ConflictReport.SplitPackage(entry.getKey(),
+                        entry.getValue().stream().sorted().collect(Collectors.toList())))
+                .sorted(Comparator.comparing(ConflictReport.SplitPackage::getPackageName))
+                .collect(Collectors.toList()));
+
+        report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Analyzed {} JARs in {} ms: {} duplicates, {} mismatches, {} split packages",
+                report.getJarsScanned(), report.getDurationMs(), report.getDuplicates().size(),
+                report.getMismatches().size(), report.getSplitPackages().size());
+        return report;
+    }
+
+    private static ConflictReport.Duplicate toDuplicate(String path, Occurrence first) {
+        Set<String> jars = new TreeSet<>();
+        Set<Long> crcs = new HashSet<>();
+        for (Occurrence occurrence = first; occurrence != null; occurrence = occurrence.next) {
+            jars.add(occurrence.jar);
+            crcs.add(occurrence.crc);
+        }
+        // The same path twice in one JAR is a broken archive, not a conflict between JARs
+        return jars.size() > 1 ? new ConflictReport.Duplicate(path, new ArrayList<>(jars), crcs.size()) : null;
+    }
+
+    /**
+     * Paths that every JAR is expected to carry, like manifests, signatures, licenses and
+     * Maven metadata. Service registrations are still compared, since duplicates of those
+     * do clash.
+     */
+    private static boolean ignored(String path) {
+        if (path.equals("module-info.class") || path.endsWith("/module-info.class")) {
+            return true;
+        }
+        if (!path.startsWith("META-INF/")) {
+            return false;
+        }
+        return !path.startsWith("META-INF/services/") && !path.startsWith("META-INF/versions/");
+    }
+
+    private static String packageOf(String path) {
+        if (!path.endsWith(".class")) {
+            return null;
+        }
+        String classPath = VERSIONED.matcher(path).replaceFirst("");
+        int slash = classPath.lastIndexOf('/');
+        if (slash < 0 || classPath.endsWith("module-info.class")) {
+            return null;
+        }
+        return classPath.substring(0, slash).replace('/', '.');
+    }
+
+    /**
+     * One JAR's copy of a path; copies of the same path are chained
+     */
+    private static class Occurrence {
+        final String jar;
+        final long crc;
+        Occurrence next;
+
+        Occurrence(String jar, long crc) {
+            this.jar = jar;
+            this.crc = crc;
+        }
+    }
+
+    /**
+     * Scans a range of JARs, splitting it in half until it is small enough
+     */
+    private static class Scan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final JarListings jarListings;
+        final List<LibsCatalog.Jar> jars;
+        final int from;
+        final int to;
+        final ConcurrentMap<String, Occurrence> occurrences;
+        final ConcurrentMap<String, Set<String>> packages;
+        final Queue<String> errors;
+        final LongAdder entries;
+
+        Scan(JarListings jarListings, List<LibsCatalog.Jar> jars, int from, int to) {
+            this(jarListings, jars, from, to, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+                    new ConcurrentLinkedQueue<>(), new LongAdder());
+        }
+
+        private Scan(JarListings jarListings, List<LibsCatalog.Jar> jars, int from, int to,
+                     ConcurrentMap<String, Occurrence> occurrences, ConcurrentMap<String, Set<String>> packages,
+                     Queue<String> errors, LongAdder entries) {
+            this.jarListings = jarListings;
+            this.jars = jars;
+            this.from = from;
+            this.to = to;
+            this.occurrences = occurrences;
+            this.packages = packages;
+            this.errors = errors;
+            this.entries = entries;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > JARS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Scan(jarListings, jars, from, middle, occurrences, packages, errors, entries),
+                        new Scan(jarListings, jars, middle, to, occurrences, packages, errors, entries));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                scanJar(jars.get(i));
+            }
+        }
+
+        private void scanJar(LibsCatalog.Jar jar) {
+            List<JarContents.FileInfo> files;
+            try {
+                files = jarListings.get(jar.getPath()).getFiles();
+            } catch (IOException e) {
+                errors.add(jar.getFileName() + ": " + e.getMessage());
+                return;
+            }
+
+            Set<String> jarPackages = new HashSet<>();
+            for (JarContents.FileInfo file : files) {
+                if (file.isDir()) {
+                    continue;
+                }
+                String path = file.getPath();
+                String packageName = packageOf(path);
+                if (packageName != null) {
+                    jarPackages.add(packageName);
+                }
+                if (!ignored(path)) {
+                    occurrences.merge(path, new Occurrence(jar.getFileName(), file.getCrc()), (existing, added) -> {
+                        added.next = existing;
+                        return added;
+                    });
+                }
+            }
+            for (String packageName : jarPackages) {
+                packages.computeIfAbsent(packageName, key -> ConcurrentHashMap.newKeySet()).add(jar.getFileName());
+            }
+            entries.add(files.size());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.chainguard.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+
+/**
+ * On-disk cache of upstream SBOM and provenance documents, keyed by coordinates and
+ * document type. The body is written while it is being parsed and kept exactly as
+ * downloaded, next to a small metadata file with the ETag and Last-Modified validators
+ * used to revalidate it with a conditional GET.
+ */
+public class DocumentCache {
+    private static final Logger log = LoggerFactory.getLogger(DocumentCache.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path cacheDir;
+
+    public DocumentCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Get a cached document, or null if it has never been stored or cannot be read
+     */
+    public Entry get(String type, String groupId, String artifactId, String version) {
+        Path bodyPath = entryPath(type, groupId, artifactId, version, ".json");
+        Path metaPath = entryPath(type, groupId, artifactId, version, ".meta.json");
+        if (!Files.exists(bodyPath) || !Files.exists(metaPath)) {
+            return null;
+        }
+        try {
+            JsonNode meta = objectMapper.readTree(metaPath.toFile());
+            return new Entry(Files.readAllBytes(bodyPath),
+                    meta.path("etag").asText(null),
+                    meta.path("lastModified").asText(null),
+                    meta.path("fetchedAt").asLong(0));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable document cache entry {}: {}", bodyPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Start storing a document while it is being read. Everything read through the returned
+     * stream is copied to a temp file, which only replaces the cached entry on commit.
+     */
+    public Download begin(String type, String groupId, String artifactId, String version, InputStream body) {
+        Path bodyPath = entryPath(type, groupId, artifactId, version, ".json");
+        try {
+            Files.createDirectories(bodyPath.getParent());
+            Path tempPath = Files.createTempFile(bodyPath.getParent(), type, ".tmp");
+            return new Download(body, bodyPath, tempPath, Files.newOutputStream(tempPath));
+        } catch (IOException e) {
+            log.warn("Not caching {}: {}", bodyPath, e.getMessage());
+            return new Download(body, bodyPath, null, null);
+        }
+    }
+
+    /**
+     * Finish a download: copy whatever the parser left unread, then move the body into place
+     * before the metadata, so an entry is only visible once both are complete
+     */
+    public void commit(String type, String groupId, String artifactId, String version, String url,
+                       Download download, String etag, String lastModified) {
+        try {
+            download.transferTo(OutputStream.nullOutputStream());
+            if (download.out == null) {
+                return;
+            }
+            download.out.close();
+            Files.move(download.tempPath, download.bodyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            download.out = null;
+            writeMeta(type, groupId, artifactId, version, url, etag, lastModified);
+        } catch (IOException e) {
+            log.warn("Failed to write document cache entry for {}: {}", url, e.getMessage());
+        } finally {
+            discard(download);
+        }
+    }
+
+    /**
+     * Drop a download that was not committed, e.g. because the body was not valid JSON
+     */
+    public void discard(Download download) {
+        if (download.out == null) {
+            return;
+        }
+        try {
+            download.out.close();
+            Files.deleteIfExists(download.tempPath);
+        } catch (IOException e) {
+            log.warn("Failed to remove {}: {}", download.tempPath, e.getMessage());
+        }
+        download.out = null;
+    }
+
+    /**
+     * Record that upstream confirmed a cached document is still current
+     */
+    public void revalidated(String type, String groupId, String artifactId, String version, String url, Entry entry) {
+        try {
+            writeMeta(type, groupId, artifactId, version, url, entry.getEtag(), entry.getLastModified());
+        } catch (IOException e) {
+            log.warn("Failed to update document cache entry for {}: {}", url, e.getMessage());
+        }
+    }
+
+    private void writeMeta(String type, String groupId, String artifactId, String version, String url,
+                           String etag, String lastModified) throws IOException {
+        Path metaPath = entryPath(type, groupId, artifactId, version, ".meta.json");
+        ObjectNode meta = objectMapper.createObjectNode();
+        meta.put("url", url);
+        meta.put("etag", etag);
+        meta.put("lastModified", lastModified);
+        meta.put("fetchedAt", System.currentTimeMillis());
+
+        Path tempPath = Files.createTempFile(metaPath.getParent(), type, ".tmp");
+        objectMapper.writeValue(tempPath.toFile(), meta);
+        Files.move(tempPath, metaPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path entryPath(String type, String groupId, String artifactId, String version, String suffix) {
+        return cacheDir.resolve(safe(groupId)).resolve(safe(artifactId)).resolve(safe(version)).resolve(type + suffix);
+    }
+
+    private static String safe(String part) {
+        String name = part.replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.isEmpty() || name.equals(".") || name.equals("..") ? "_" : name;
+    }
+
+    /**
+     * Upstream body being read, with every byte also written to the cache's temp file.
+     * Closing it does not close the upstream body, which the caller owns.
+     */
+    public static class Download extends FilterInputStream {
+        private final Path bodyPath;
+        private final Path tempPath;
+        private OutputStream out;
+
+        private Download(InputStream body, Path bodyPath, Path tempPath, OutputStream out) {
+            super(body);
+            this.bodyPath = bodyPath;
+            this.tempPath = tempPath;
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && out != null) {
+                out.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0 && out != null) {
+                out.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes still belong in the cached copy; skip reports 0, never -1, at EOF
+            if (n <= 0) {
+                return 0;
+            }
+            return Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * A cached document and the validators it was served with
+     */
+    public static class Entry {
+        private final byte[] body;
+        private final String etag;
+        private final String lastModified;
+        private final long fetchedAt;
+
+        public Entry(byte[] body, String etag, String lastModified, long fetchedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public byte[] getBody() { return body; }
+        public String getEtag() { return etag; }
+        public String getLastModified() { return lastModified; }
+        public long getFetchedAt() { return fetchedAt; }
+    }
+}
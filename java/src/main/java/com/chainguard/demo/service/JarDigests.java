@@ -0,0 +1,182 @@
+package com.chainguard.demo.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Digests of JAR files (SHA-1, SHA-256, SHA-512 and MD5), computed by streaming
+ * memory-mapped chunks instead of reading whole files onto the heap. Only the requested
+ * algorithms are computed, in a single pass; results are cached per algorithm by path,
+ * size and mtime, so a later request computes just the algorithms still missing.
+ * Concurrent requests for the same file and algorithm share one computation.
+ */
+public class JarDigests {
+    // Size of each mapped window; keeps address space use bounded for very large files
+    private static final long CHUNK_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Supported algorithms, keyed by the names used in API responses
+     */
+    public static final Map<String, String> ALGORITHMS;
+    static {
+        Map<String, String> algorithms = new LinkedHashMap<>();
+        algorithms.put("md5", "MD5");
+        algorithms.put("sha1", "SHA-1");
+        algorithms.put("sha256", "SHA-256");
+        algorithms.put("sha512", "SHA-512");
+        ALGORITHMS = Collections.unmodifiableMap(algorithms);
+    }
+
+    private final ConcurrentMap<Path, Entry> cache = new ConcurrentHashMap<>();
+    private final ExecutorService pool = Executors.newFixedThreadPool(
+            Integer.parseInt(System.getenv().getOrDefault("DIGEST_THREADS",
+                    String.valueOf(Runtime.getRuntime().availableProcessors()))),
+            runnable -> {
+                Thread thread = new Thread(runnable, "jar-digests");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Hex SHA-256 of the file, from cache when it has not changed
+     */
+    public String sha256(Path path) throws IOException {
+        return digests(path, List.of("sha256")).get("sha256");
+    }
+
+    /**
+     * Digests of one file in the given algorithms, from cache when it has not changed
+     */
+    public Map<String, String> digests(Path path, Collection<String> algorithms) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        Entry entry = cache.compute(path, (p, existing) ->
+                existing != null && existing.matches(size, modified) ? existing : new Entry(size, modified));
+
+        // Claim the algorithms nobody has computed (or is computing) yet, and compute only those
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        Map<String, CompletableFuture<String>> claimed = new LinkedHashMap<>();
+        for (String algorithm : algorithms) {
+            CompletableFuture<String> created = new CompletableFuture<>();
+            CompletableFuture<String> future = entry.digests.compute(algorithm, (a, existing) ->
+                    existing != null && !existing.isCompletedExceptionally() ? existing : created);
+            if (future == created) {
+                claimed.put(algorithm, created);
+            }
+            futures.put(algorithm, future);
+        }
+
+        if (!claimed.isEmpty()) {
+            try {
+                Map<String, String> computed = compute(path, size, claimed.keySet());
+                claimed.forEach((algorithm, future) -> future.complete(computed.get(algorithm)));
+            } catch (IOException | RuntimeException e) {
+                claimed.values().forEach(future -> future.completeExceptionally(e));
+            } catch (Error e) {
+                // Never leave a claimed future pending: other callers are blocked joining it
+                claimed.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            }
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<String>> future : futures.entrySet()) {
+            try {
+                result.put(future.getKey(), future.getValue().join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Digests of many files, computed on a bounded pool. Each result holds the file name
+     * and the requested algorithms, in input order.
+     */
+    public List<Map<String, String>> digestAll(List<Path> paths, Collection<String> algorithms) {
+        List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>();
+        for (Path path : paths) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Map<String, String> result = new LinkedHashMap<>();
+                result.put("file", path.getFileName().toString());
+                try {
+                    result.putAll(digests(path, algorithms));
+                } catch (IOException e) {
+                    result.put("error", e.getMessage());
+                }
+                return result;
+            }, pool));
+        }
+        List<Map<String, String>> results = new ArrayList<>();
+        for (CompletableFuture<Map<String, String>> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Drop cached digests for files that are no longer present
+     */
+    public void retain(Collection<Path> paths) {
+        cache.keySet().retainAll(new HashSet<>(paths));
+    }
+
+    private Map<String, String> compute(Path path, long size, Collection<String> algorithms) throws IOException {
+        Map<String, MessageDigest> digests = new LinkedHashMap<>();
+        try {
+            for (String algorithm : algorithms) {
+                String name = ALGORITHMS.get(algorithm);
+                if (name == null) {
+                    throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+                }
+                digests.put(algorithm, MessageDigest.getInstance(name));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // One read of the file: every requested digest consumes the same mapped chunk
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (long position = 0; position < size; position += CHUNK_SIZE) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, size - position));
+                for (MessageDigest digest : digests.values()) {
+                    digest.update(chunk.duplicate());
+                }
+            }
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, MessageDigest> digest : digests.entrySet()) {
+            result.put(digest.getKey(), HexFormat.of().formatHex(digest.getValue().digest()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final ConcurrentMap<String, CompletableFuture<String>> digests = new ConcurrentHashMap<>();
+
+        Entry(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        boolean matches(long size, long modified) {
+            return this.size == size && this.modified == modified;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.chainguard.demo.service;
+
+import com.chainguard.demo.model.CacheStats;
+import com.chainguard.demo.model.JarContents;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Parsed entry lists of JAR files, kept in an LRU cache bounded by the estimated heap
+ * used by the entries rather than by JAR count, so a few very large JARs cannot crowd
+ * out the heap. Cached listings are dropped when the JAR's size or mtime changes.
+ */
+public class JarListings {
+    // Rough heap cost of one entry: FileInfo, its path String and the list slot, plus the name's bytes
+    private static final int ENTRY_OVERHEAD = 120;
+
+    private final WeightedCache<Path, Listing> cache;
+
+    public JarListings(long maxWeight) {
+        this.cache = new WeightedCache<>(maxWeight);
+    }
+
+    /**
+     * Entries of a JAR in central directory order, from cache when it has not changed.
+     * The returned list is shared and must not be modified.
+     */
+    public Listing get(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        Listing cached = cache.get(path, listing -> listing.size == size && listing.modified == modified);
+        if (cached != null) {
+            return cached;
+        }
+        Listing listing = read(path, size, modified);
+        cache.put(path, listing, listing.weight);
+        return listing;
+    }
+
+    /**
+     * Drop cached listings for files that are no longer present
+     */
+    public void retain(Collection<Path> paths) {
+        cache.retainKeys(paths);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static Listing read(Path path, long size, long modified) throws IOException {
+        List<JarContents.FileInfo> files = new ArrayList<>();
+        long[] totals = {0, 0};
+        CentralDirectoryReader.forEachEntry(path, (name, entrySize, compressedSize, crc, isDirectory) -> {
+            JarContents.FileInfo fileInfo = new JarContents.FileInfo(name, entrySize, compressedSize, isDirectory);
+            fileInfo.setCrc(crc);
+            files.add(fileInfo);
+            totals[0] += entrySize;
+            totals[1] += ENTRY_OVERHEAD + 2L * name.length();
+        });
+        return new Listing(size, modified, Collections.unmodifiableList(files), totals[0], totals[1]);
+    }
+
+    public static class Listing {
+        private final long size;
+        private final long modified;
+        private final List<JarContents.FileInfo> files;
+        private final long totalSize;
+        private final long weight;
+
+        Listing(long size, long modified, List<JarContents.FileInfo> files, long totalSize, long weight) {
+            this.size = size;
+            this.modified = modified;
+            this.files = files;
+            this.totalSize = totalSize;
+            this.weight = weight;
+        }
+
+        public List<JarContents.FileInfo> getFiles() { return files; }
+        public long getTotalSize() { return totalSize; }
+    }
+}
@@ -0,0 +1,304 @@
+package com.chainguard.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the JARs in the libs directory, shared by the services.
+ * Built once at startup and rebuilt when a WatchService reports changes, so request
+ * handlers look JARs up by artifactId and version without listing the directory.
+ */
+public class LibsCatalog {
+    private static final Logger log = LoggerFactory.getLogger(LibsCatalog.class);
+
+    /**
+     * artifactId-version[-classifier] as used in JAR filenames
+     */
+    public static final Pattern JAR_FILENAME = Pattern.compile("^(.+)-(\\d+\\.\\d+[\\d.]*(?:-[A-Za-z0-9]+)?)$");
+
+    // Quiet period after the last file event before the catalog is rebuilt
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final Path dir;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), 0);
+
+    public LibsCatalog(Path dir) {
+        this.dir = dir;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * Build the catalog and start watching the directory for changes
+     */
+    public void start() {
+        refreshQuietly();
+        Thread watcher = new Thread(this::watch, "libs-catalog-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * All JARs, sorted by filename
+     */
+    public List<Jar> getJars() {
+        return snapshot.jars;
+    }
+
+    /**
+     * Incremented every time the catalog is rebuilt
+     */
+    public long getGeneration() {
+        return snapshot.generation;
+    }
+
+    /**
+     * Find a JAR by artifactId and version, as parsed from its filename or read from
+     * its pom.properties. Falls back to the old filename prefix match.
+     */
+    public Jar find(String artifactId, String version) {
+        Snapshot current = snapshot;
+        Jar jar = current.byCoordinates.get(key(artifactId, version));
+        if (jar != null) {
+            return jar;
+        }
+        String prefix = artifactId + "-" + version;
+        for (Jar candidate : current.jars) {
+            if (candidate.getFileName().startsWith(prefix)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run a callback after each rebuild
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Rebuild the catalog, reusing entries whose size and mtime are unchanged
+     */
+    public synchronized void refresh() {
+        Snapshot previous = snapshot;
+        Map<Path, Jar> known = new HashMap<>();
+        for (Jar jar : previous.jars) {
+            known.put(jar.getPath(), jar);
+        }
+
+        List<Jar> jars = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            try (var stream = Files.list(dir)) {
+                jars = stream
+                        .filter(p -> p.toString().endsWith(".jar"))
+                        .collect(Collectors.toList())
+                        .parallelStream()
+                        .map(p -> load(p, known.get(p)))
+                        .filter(Objects::nonNull)
+                        .sorted(Comparator.comparing(Jar::getFileName))
+                        .collect(Collectors.toList());
+            } catch (IOException e) {
+                log.warn("Failed to list {}: {}", dir, e.getMessage());
+                return;
+            }
+        }
+
+        snapshot = new Snapshot(jars, previous.generation + 1);
+        log.info("Catalogued {} JARs in {}", jars.size(), dir);
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Catalog listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Jar load(Path path, Jar known) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            long size = attrs.size();
+            long modified = attrs.lastModifiedTime().toMillis();
+            if (known != null && known.getSize() == size && known.getModified() == modified) {
+                return known;
+            }
+
+            String fileName = path.getFileName().toString();
+            String name = fileName.substring(0, fileName.length() - 4);
+            Matcher matcher = JAR_FILENAME.matcher(name);
+            String artifactId = matcher.matches() ? matcher.group(1) : name;
+            String version = matcher.matches() ? matcher.group(2) : "";
+
+            Properties pom = readPomProperties(path);
+            return new Jar(path, fileName, artifactId, version,
+                    pom != null ? pom.getProperty("groupId") : null,
+                    pom != null ? pom.getProperty("artifactId") : null,
+                    pom != null ? pom.getProperty("version") : null,
+                    size, modified);
+        } catch (IOException e) {
+            // Removed between listing and reading
+            return null;
+        } catch (RuntimeException e) {
+            // One unreadable JAR must not take down the whole rebuild
+            log.warn("Skipping {}: {}", path.getFileName(), e.toString());
+            return null;
+        }
+    }
+
+    private Properties readPomProperties(Path path) {
+        try {
+            // Only the pom.properties entries are inflated; everything else is skipped in the central directory
+            Map<String, byte[]> poms = CentralDirectoryReader.readEntries(path,
+                    name -> name.endsWith("/pom.properties") && name.contains("META-INF/maven/"));
+            for (byte[] pom : poms.values()) {
+                Properties props = new Properties();
+                props.load(new ByteArrayInputStream(pom));
+                if (props.getProperty("groupId") != null) {
+                    return props;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read pom.properties from {}: {}", path.getFileName(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Rebuild the catalog when the directory changes. If the directory does not exist
+     * yet, poll until it does.
+     */
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (!Files.isDirectory(dir)) {
+                sleep(5000);
+                if (Files.isDirectory(dir)) {
+                    refreshQuietly();
+                }
+                continue;
+            }
+            try (WatchService watchService = dir.getFileSystem().newWatchService()) {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                while (true) {
+                    WatchKey key = watchService.take();
+                    // Let a burst of events (e.g. a copy in progress) settle before rebuilding
+                    do {
+                        key.pollEvents();
+                        if (!key.reset()) {
+                            break;
+                        }
+                    } while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+                    refreshQuietly();
+                    if (!Files.isDirectory(dir)) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Watching {} failed, retrying: {}", dir, e.toString());
+                sleep(5000);
+            }
+        }
+    }
+
+    /**
+     * Rebuild from the watcher thread, which must outlive any failure in a single rebuild
+     */
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding the catalog of {} failed: {}", dir, e.toString());
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String key(String artifactId, String version) {
+        return artifactId + ":" + version;
+    }
+
+    /**
+     * Immutable view of the directory, swapped in whole on each rebuild
+     */
+    private static final class Snapshot {
+        private final List<Jar> jars;
+        private final Map<String, Jar> byCoordinates = new HashMap<>();
+        private final long generation;
+
+        Snapshot(List<Jar> jars, long generation) {
+            this.jars = Collections.unmodifiableList(jars);
+            this.generation = generation;
+            // Filename coordinates win over pom.properties, matching what the UI sends
+            for (Jar jar : jars) {
+                if (jar.getPomArtifactId() != null && jar.getPomVersion() != null) {
+                    byCoordinates.putIfAbsent(key(jar.getPomArtifactId(), jar.getPomVersion()), jar);
+                }
+            }
+            for (Jar jar : jars) {
+                byCoordinates.put(key(jar.getArtifactId(), jar.getVersion()), jar);
+            }
+        }
+    }
+
+    /**
+     * A JAR in the libs directory
+     */
+    public static class Jar {
+        private final Path path;
+        private final String fileName;
+        private final String artifactId;
+        private final String version;
+        private final String groupId;
+        private final String pomArtifactId;
+        private final String pomVersion;
+        private final long size;
+        private final long modified;
+
+        public Jar(Path path, String fileName, String artifactId, String version,
+                   String groupId, String pomArtifactId, String pomVersion, long size, long modified) {
+            this.path = path;
+            this.fileName = fileName;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.groupId = groupId;
+            this.pomArtifactId = pomArtifactId;
+            this.pomVersion = pomVersion;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        public Path getPath() { return path; }
+        public String getFileName() { return fileName; }
+        public String getArtifactId() { return artifactId; }
+        public String getVersion() { return version; }
+        public String getGroupId() { return groupId; }
+        public String getPomArtifactId() { return pomArtifactId; }
+        public String getPomVersion() { return pomVersion; }
+        public long getSize() { return size; }
+        public long getModified() { return modified; }
+    }
+}
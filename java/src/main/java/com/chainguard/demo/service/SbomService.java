@@ -1,68 +1,142 @@
 package com.chainguard.demo.service;
 
+import com.chainguard.demo.model.CacheStats;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Duration;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 public class SbomService {
     private static final Logger log = LoggerFactory.getLogger(SbomService.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    // .netrc credentials are only ever sent to this host, including after redirects
+    private static final String AUTH_HOST = "libraries.cgr.dev";
+    private static final int MAX_REDIRECTS = 5;
+
     private final String librariesBaseUrl = System.getenv().getOrDefault("CHAINGUARD_LIBRARIES_URL", "https://libraries.cgr.dev/java");
-    private final String libsDir = System.getenv().getOrDefault("CHAINCTL_LIBS_DIR", "/app/libs");
+    private final LibsCatalog catalog;
+
+    // One client for every upstream fetch, so connections are pooled and reused (over HTTP/2
+    // when the server supports it) instead of opening a new TLS connection per document.
+    // Redirects are followed by hand: the client would copy the Authorization header to any host.
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(Long.parseLong(System.getenv().getOrDefault("UPSTREAM_CONNECT_TIMEOUT_MS", "10000"))))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    private final Duration requestTimeout = Duration.ofMillis(
+            Long.parseLong(System.getenv().getOrDefault("UPSTREAM_REQUEST_TIMEOUT_MS", "30000")));
+    private final String userAgent = System.getenv().getOrDefault("UPSTREAM_USER_AGENT", "chainguard-libraries-java-demo/1.0.0");
+
+    // Response bodies are read and parsed here, since reading a streamed body blocks;
+    // further responses wait in the queue, with their bodies held by the client meanwhile
+    private final ExecutorService parser = Executors.newFixedThreadPool(
+            Integer.parseInt(System.getenv().getOrDefault("UPSTREAM_PARSER_THREADS", "8")),
+            runnable -> {
+                Thread thread = new Thread(runnable, "upstream-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // Published documents are immutable per version, so cached copies are served without asking
+    // upstream until they are this old, then revalidated with a conditional GET
+    private final DocumentCache documentCache = new DocumentCache(
+            Paths.get(System.getenv().getOrDefault("UPSTREAM_CACHE_DIR",
+                    Paths.get(System.getProperty("user.home"), ".cache", "chainguard-demo", "documents").toString())));
+    private final Duration revalidateAfter = Duration.ofHours(
+            Long.parseLong(System.getenv().getOrDefault("UPSTREAM_CACHE_REVALIDATE_HOURS", "24")));
+
+    // Serve only from the document cache and never contact upstream
+    private final boolean offline = Boolean.parseBoolean(System.getenv().getOrDefault("UPSTREAM_OFFLINE", "false"));
+
+    // Parsed SBOM and provenance results, bounded by the estimated heap size of their JSON trees
+    private final WeightedCache<String, CachedResult> results = new WeightedCache<>(
+            Long.parseLong(System.getenv().getOrDefault("SBOM_CACHE_MB", "32")) * 1024 * 1024);
+
+    // Lookups in progress by document URL; concurrent requests for the same URL share one fetch and parse
+    private final ConcurrentMap<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder upstreamLookups = new LongAdder();
+    private final LongAdder coalescedLookups = new LongAdder();
+
+    public SbomService(LibsCatalog catalog) {
+        this.catalog = catalog;
+    }
 
     /**
      * Fetch SBOM for a package from Chainguard Libraries API
      * URL format: https://libraries.cgr.dev/java/{groupPath}/{artifactId}/{version}/{artifactId}-{version}.spdx.json
      */
     public Map<String, Object> getSbom(String groupId, String artifactId, String version) {
+        return getSbomAsync(groupId, artifactId, version).join();
+    }
+
+    /**
+     * Fetch SBOM without blocking the caller, so many can be in flight over the shared client
+     */
+    public CompletableFuture<Map<String, Object>> getSbomAsync(String groupId, String artifactId, String version) {
         Map<String, Object> result = new HashMap<>();
 
-        try {
-            // If groupId is empty, try to extract it from the JAR's pom.properties
-            if (groupId == null || groupId.isEmpty()) {
-                groupId = extractGroupIdFromJar(artifactId, version);
-            }
+        // If groupId is empty, try to extract it from the JAR's pom.properties
+        String resolvedGroupId = groupId == null || groupId.isEmpty() ? extractGroupIdFromJar(artifactId, version) : groupId;
+        if (resolvedGroupId == null || resolvedGroupId.isEmpty()) {
+            result.put("error", "Could not determine groupId for " + artifactId);
+            return CompletableFuture.completedFuture(result);
+        }
 
-            if (groupId == null || groupId.isEmpty()) {
-                result.put("error", "Could not determine groupId for " + artifactId);
-                return result;
-            }
+        String groupPath = resolvedGroupId.replace('.', '/');
+        String sbomUrl = String.format("%s/%s/%s/%s/%s-%s.spdx.json",
+                librariesBaseUrl, groupPath, artifactId, version, artifactId, version);
 
-            String groupPath = groupId.replace('.', '/');
-            String sbomUrl = String.format("%s/%s/%s/%s/%s-%s.spdx.json",
-                    librariesBaseUrl, groupPath, artifactId, version, artifactId, version);
+        String cacheKey = String.join(":", "sbom", resolvedGroupId, artifactId, version);
+        Map<String, Object> cached = cachedResult(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
 
-            log.info("Fetching SBOM from: {}", sbomUrl);
+        log.info("Fetching SBOM from: {}", sbomUrl);
 
-            String sbomJson = fetchWithNetrcAuth(sbomUrl);
-            if (sbomJson != null) {
-                JsonNode sbom = objectMapper.readTree(sbomJson);
+        return coalesce(sbomUrl, () -> fetchDocument("sbom", resolvedGroupId, artifactId, version, sbomUrl).thenApply(sbom -> {
+            if (sbom != null) {
                 result.put("sbom", sbom);
                 result.put("url", sbomUrl);
 
                 // Extract key information
-                extractSbomInfo(result, sbom, groupId, artifactId, version);
+                extractSbomInfo(result, sbom, resolvedGroupId, artifactId, version);
+                return remember(cacheKey, result, sbom);
             } else {
                 result.put("error", "SBOM not available for " + artifactId + " " + version);
                 result.put("url", sbomUrl);
             }
-        } catch (Exception e) {
-            log.error("Failed to fetch SBOM: {}", e.getMessage());
-            result.put("error", e.getMessage());
-        }
-
-        return result;
+            return result;
+        })).exceptionally(e -> {
+            // Each waiter on a shared lookup gets its own error result
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to fetch SBOM: {}", cause.getMessage());
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", cause.getMessage());
+            return error;
+        });
     }
 
     /**
@@ -70,138 +144,287 @@ public class SbomService {
      * URL format: https://libraries.cgr.dev/java/{groupPath}/{artifactId}/{version}/{artifactId}-{version}.slsa-attestation.json
      */
     public Map<String, Object> getProvenance(String groupId, String artifactId, String version) {
+        return getProvenanceAsync(groupId, artifactId, version).join();
+    }
+
+    /**
+     * Fetch provenance without blocking the caller
+     */
+    public CompletableFuture<Map<String, Object>> getProvenanceAsync(String groupId, String artifactId, String version) {
         Map<String, Object> result = new HashMap<>();
 
-        try {
-            if (groupId == null || groupId.isEmpty()) {
-                groupId = extractGroupIdFromJar(artifactId, version);
-            }
+        String resolvedGroupId = groupId == null || groupId.isEmpty() ? extractGroupIdFromJar(artifactId, version) : groupId;
+        if (resolvedGroupId == null || resolvedGroupId.isEmpty()) {
+            result.put("error", "Could not determine groupId for " + artifactId);
+            return CompletableFuture.completedFuture(result);
+        }
 
-            if (groupId == null || groupId.isEmpty()) {
-                result.put("error", "Could not determine groupId for " + artifactId);
-                return result;
-            }
+        String groupPath = resolvedGroupId.replace('.', '/');
+        String provenanceUrl = String.format("%s/%s/%s/%s/%s-%s.slsa-attestation.json",
+                librariesBaseUrl, groupPath, artifactId, version, artifactId, version);
 
-            String groupPath = groupId.replace('.', '/');
-            String provenanceUrl = String.format("%s/%s/%s/%s/%s-%s.slsa-attestation.json",
-                    librariesBaseUrl, groupPath, artifactId, version, artifactId, version);
+        String cacheKey = String.join(":", "provenance", resolvedGroupId, artifactId, version);
+        Map<String, Object> cached = cachedResult(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
 
-            log.info("Fetching provenance from: {}", provenanceUrl);
+        log.info("Fetching provenance from: {}", provenanceUrl);
 
-            String provenanceJson = fetchWithNetrcAuth(provenanceUrl);
-            if (provenanceJson != null) {
-                JsonNode provenance = objectMapper.readTree(provenanceJson);
+        return coalesce(provenanceUrl, () -> fetchDocument("provenance", resolvedGroupId, artifactId, version, provenanceUrl).thenApply(provenance -> {
+            if (provenance != null) {
                 result.put("provenance", provenance);
                 result.put("url", provenanceUrl);
 
                 // Extract and decode the SLSA predicate
                 extractProvenanceInfo(result, provenance);
+                return remember(cacheKey, result, provenance);
             } else {
                 result.put("error", "Provenance not available for " + artifactId + " " + version);
                 result.put("url", provenanceUrl);
             }
-        } catch (Exception e) {
-            log.error("Failed to fetch provenance: {}", e.getMessage());
-            result.put("error", e.getMessage());
-        }
+            return result;
+        })).exceptionally(e -> {
+            // Each waiter on a shared lookup gets its own error result
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to fetch provenance: {}", cause.getMessage());
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", cause.getMessage());
+            return error;
+        });
+    }
 
-        return result;
+    /**
+     * Hit, miss and eviction counts of the parsed result cache
+     */
+    public CacheStats getCacheStats() {
+        return results.stats();
     }
 
     /**
-     * Extract groupId from JAR's pom.properties file
+     * How many lookups went upstream and how many shared a lookup already in flight
      */
-    private String extractGroupIdFromJar(String artifactId, String version) {
+    public Map<String, Object> getCoalescingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lookups", upstreamLookups.sum());
+        stats.put("coalesced", coalescedLookups.sum());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    /**
+     * Join the lookup already in flight for a URL, or start one. The entry is removed once the
+     * lookup completes, by which time a successful result is in the memory cache.
+     */
+    private CompletableFuture<Map<String, Object>> coalesce(String url, Supplier<CompletableFuture<Map<String, Object>>> lookup) {
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(url, created);
+        if (existing != null) {
+            coalescedLookups.increment();
+            return existing;
+        }
+
+        upstreamLookups.increment();
+        CompletableFuture<Map<String, Object>> started;
         try {
-            Path jarPath = findJarFile(artifactId, version);
-            if (jarPath == null) {
-                return null;
+            started = lookup.get();
+        } catch (RuntimeException e) {
+            // Never leave a future in the map that nothing will complete
+            inFlight.remove(url, created);
+            created.completeExceptionally(e);
+            return created;
+        }
+        started.whenComplete((result, e) -> {
+            inFlight.remove(url, created);
+            if (e != null) {
+                created.completeExceptionally(e);
+            } else {
+                created.complete(result);
             }
+        });
+        return created;
+    }
 
-            try (JarFile jarFile = new JarFile(jarPath.toFile())) {
-                // Look for pom.properties in META-INF/maven/{groupId}/{artifactId}/
-                Enumeration<JarEntry> entries = jarFile.entries();
-                while (entries.hasMoreElements()) {
-                    JarEntry entry = entries.nextElement();
-                    String name = entry.getName();
-                    if (name.endsWith("/pom.properties") && name.contains("META-INF/maven/")) {
-                        try (InputStream is = jarFile.getInputStream(entry);
-                             BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-                            Properties props = new Properties();
-                            props.load(reader);
-                            String groupId = props.getProperty("groupId");
-                            if (groupId != null) {
-                                return groupId;
-                            }
-                        }
-                    }
-                }
+    /**
+     * A parsed result from memory, unless it is due for revalidation upstream
+     */
+    private Map<String, Object> cachedResult(String key) {
+        long now = System.currentTimeMillis();
+        CachedResult cached = results.get(key,
+                entry -> offline || now - entry.cachedAt < revalidateAfter.toMillis());
+        return cached != null ? cached.result : null;
+    }
+
+    /**
+     * Keep a parsed result in memory, weighted by its document and extracted info.
+     * The cached map is shared between requests, so it is returned read-only.
+     */
+    private Map<String, Object> remember(String key, Map<String, Object> result, JsonNode document) {
+        Map<String, Object> shared = Collections.unmodifiableMap(result);
+        long weight = estimateBytes(document) + estimateBytes(objectMapper.valueToTree(result.get("info")));
+        results.put(key, new CachedResult(shared, System.currentTimeMillis()), weight);
+        return shared;
+    }
+
+    /**
+     * Rough heap size of a parsed JSON tree: node headers, field map entries, and string contents
+     */
+    static long estimateBytes(JsonNode node) {
+        if (node == null) {
+            return 0;
+        }
+        if (node.isObject()) {
+            long bytes = 64;
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                bytes += 56 + field.getKey().length() + estimateBytes(field.getValue());
             }
-        } catch (Exception e) {
-            log.warn("Failed to extract groupId from JAR: {}", e.getMessage());
+            return bytes;
         }
-        return null;
+        if (node.isArray()) {
+            long bytes = 40;
+            for (JsonNode element : node) {
+                bytes += 8 + estimateBytes(element);
+            }
+            return bytes;
+        }
+        if (node.isTextual()) {
+            return 56 + node.textValue().length();
+        }
+        return 24;
+    }
+
+    /**
+     * Extract groupId from JAR's pom.properties file, as read by the catalog
+     */
+    private String extractGroupIdFromJar(String artifactId, String version) {
+        LibsCatalog.Jar jar = catalog.find(artifactId, version);
+        return jar != null ? jar.getGroupId() : null;
     }
 
     /**
-     * Find JAR file by artifactId and version
+     * Get a document from the disk cache, revalidating it upstream once it is old enough, or
+     * download it. Completes with null when the document is not available, and exceptionally
+     * if it is not JSON.
      */
-    private Path findJarFile(String artifactId, String version) throws IOException {
-        Path libsPath = Paths.get(libsDir);
-        if (!Files.exists(libsPath)) {
-            return null;
+    private CompletableFuture<JsonNode> fetchDocument(String type, String groupId, String artifactId, String version, String url) {
+        DocumentCache.Entry cached = documentCache.get(type, groupId, artifactId, version);
+        if (cached != null && (offline || System.currentTimeMillis() - cached.getFetchedAt() < revalidateAfter.toMillis())) {
+            // Parsed inside the future so a corrupt cached body fails it rather than the caller
+            return CompletableFuture.completedFuture(cached).thenApply(entry -> parse(entry.getBody()));
+        }
+        if (offline) {
+            log.warn("Offline mode: {} not in cache", url);
+            return CompletableFuture.completedFuture(null);
         }
 
-        try (var stream = Files.list(libsPath)) {
-            return stream
-                    .filter(p -> {
-                        String name = p.getFileName().toString();
-                        return name.startsWith(artifactId + "-" + version) && name.endsWith(".jar");
-                    })
-                    .findFirst()
-                    .orElse(null);
+        // Reading the body blocks, so it happens on the parser pool rather than the client's threads
+        return fetchWithNetrcAuth(url, cached).thenApplyAsync(response -> {
+            if (response == null) {
+                // Upstream unreachable; a stale copy is better than nothing
+                return cached != null ? parse(cached.getBody()) : null;
+            }
+            try (InputStream body = response.body()) {
+                if (response.statusCode() == 304 && cached != null) {
+                    documentCache.revalidated(type, groupId, artifactId, version, url, cached);
+                    return parse(cached.getBody());
+                }
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    log.warn("HTTP {} for {}", response.statusCode(), url);
+                    return null;
+                }
+
+                // The body streams into Jackson and, on the way, into the disk cache
+                DocumentCache.Download download = documentCache.begin(type, groupId, artifactId, version, body);
+                try {
+                    JsonNode document = objectMapper.readTree(download);
+                    documentCache.commit(type, groupId, artifactId, version, url, download,
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null));
+                    return document;
+                } finally {
+                    documentCache.discard(download);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, parser);
+    }
+
+    private static JsonNode parse(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
     /**
-     * Fetch URL content using .netrc credentials
+     * GET a URL using .netrc credentials, conditionally when a cached copy has validators.
+     * Completes with null if the request fails.
      */
-    private String fetchWithNetrcAuth(String urlString) {
-        try {
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("User-Agent", "curl/8.0");
-
-            // Read .netrc credentials
-            String[] credentials = readNetrcCredentials("libraries.cgr.dev");
-            if (credentials != null) {
-                String auth = credentials[0] + ":" + credentials[1];
-                String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
-                conn.setRequestProperty("Authorization", "Basic " + encodedAuth);
-            }
+    private CompletableFuture<HttpResponse<InputStream>> fetchWithNetrcAuth(String urlString, DocumentCache.Entry cached) {
+        // Read .netrc credentials
+        String[] credentials = readNetrcCredentials(AUTH_HOST);
+
+        return send(URI.create(urlString), cached, credentials, MAX_REDIRECTS)
+                .handle((response, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        log.error("Failed to fetch {}: {}", urlString, cause.toString());
+                        return null;
+                    }
+                    return response;
+                });
+    }
 
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(30000);
+    /**
+     * Send one GET and follow redirects the way Redirect.NORMAL would (never from https to http),
+     * attaching credentials only to requests for AUTH_HOST
+     */
+    private CompletableFuture<HttpResponse<InputStream>> send(URI uri, DocumentCache.Entry cached, String[] credentials, int redirectsLeft) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("User-Agent", userAgent)
+                .header("Accept", "application/json")
+                .GET();
+
+        if (cached != null && cached.getEtag() != null) {
+            request.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            request.header("If-Modified-Since", cached.getLastModified());
+        }
 
-            int responseCode = conn.getResponseCode();
-            if (responseCode >= 200 && responseCode < 300) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        response.append(line);
-                    }
-                    return response.toString();
-                }
-            } else {
-                log.warn("HTTP {} for {}", responseCode, urlString);
-                return null;
-            }
-        } catch (Exception e) {
-            log.error("Failed to fetch {}: {}", urlString, e.getMessage());
-            return null;
+        if (credentials != null && AUTH_HOST.equalsIgnoreCase(uri.getHost())) {
+            String auth = credentials[0] + ":" + credentials[1];
+            String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
+            request.header("Authorization", "Basic " + encodedAuth);
         }
+
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenCompose(response -> {
+                    Optional<String> location = response.headers().firstValue("Location");
+                    if (!isRedirect(response.statusCode()) || location.isEmpty()) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    URI target = uri.resolve(location.get());
+                    if (redirectsLeft == 0 || ("https".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(target.getScheme()))) {
+                        log.warn("Not following redirect from {} to {}", uri, target);
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    try {
+                        response.body().close();
+                    } catch (IOException e) {
+                        log.debug("Failed to close redirect body from {}: {}", uri, e.getMessage());
+                    }
+                    return send(target, cached, credentials, redirectsLeft - 1);
+                });
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
     }
 
     /**
@@ -347,4 +570,14 @@ public class SbomService {
 
         result.put("info", info);
     }
+
+    private static class CachedResult {
+        final Map<String, Object> result;
+        final long cachedAt;
+
+        CachedResult(Map<String, Object> result, long cachedAt) {
+            this.result = result;
+            this.cachedAt = cachedAt;
+        }
+    }
 }
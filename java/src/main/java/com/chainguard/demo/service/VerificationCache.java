@@ -0,0 +1,88 @@
+package com.chainguard.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+
+/**
+ * On-disk cache of chainctl verification results, keyed by JAR SHA-256 and parent org.
+ * Each entry is a small JSON file holding the parsed chainctl output and when it was verified,
+ * so restarts only need to run chainctl for JARs that have not been seen before.
+ */
+public class VerificationCache {
+    private static final Logger log = LoggerFactory.getLogger(VerificationCache.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path cacheDir;
+    private final Duration ttl;
+
+    public VerificationCache(Path cacheDir, Duration ttl) {
+        this.cacheDir = cacheDir;
+        this.ttl = ttl;
+    }
+
+    public boolean isEnabled() {
+        return !ttl.isZero() && !ttl.isNegative();
+    }
+
+    /**
+     * Get the cached chainctl result for a JAR digest, or null if missing or expired
+     */
+    public JsonNode get(String sha256, String parentOrg) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Path entryPath = entryPath(sha256, parentOrg);
+        if (!Files.exists(entryPath)) {
+            return null;
+        }
+        try {
+            JsonNode entry = objectMapper.readTree(entryPath.toFile());
+            long verifiedAt = entry.path("verifiedAt").asLong(0);
+            if (System.currentTimeMillis() - verifiedAt > ttl.toMillis()) {
+                Files.deleteIfExists(entryPath);
+                return null;
+            }
+            return entry.path("result");
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable verification cache entry {}: {}", entryPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store a successful chainctl result. Written to a temp file and moved into place
+     * so readers never see a partial entry.
+     */
+    public void put(String sha256, String parentOrg, JsonNode result) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Path entryPath = entryPath(sha256, parentOrg);
+            Files.createDirectories(entryPath.getParent());
+            ObjectNode entry = objectMapper.createObjectNode();
+            entry.put("sha256", sha256);
+            entry.put("parentOrg", parentOrg);
+            entry.put("verifiedAt", System.currentTimeMillis());
+            entry.set("result", result);
+
+            Path tempPath = Files.createTempFile(entryPath.getParent(), sha256, ".tmp");
+            objectMapper.writeValue(tempPath.toFile(), entry);
+            Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write verification cache entry for {}: {}", sha256, e.getMessage());
+        }
+    }
+
+    private Path entryPath(String sha256, String parentOrg) {
+        String org = parentOrg.replaceAll("[^A-Za-z0-9._-]", "_");
+        return cacheDir.resolve(org).resolve(sha256 + ".json");
+    }
+}
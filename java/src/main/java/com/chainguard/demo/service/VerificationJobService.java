@@ -0,0 +1,131 @@
+package com.chainguard.demo.service;
+
+import com.chainguard.demo.model.PackageInfo;
+import com.chainguard.demo.model.VerificationJob;
+import com.chainguard.demo.model.VerificationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs chainctl verifications in the background and keeps a bounded history of jobs
+ */
+public class VerificationJobService {
+    private static final Logger log = LoggerFactory.getLogger(VerificationJobService.class);
+
+    private final ChainctlService chainctlService;
+    private final int maxJobs = Integer.parseInt(System.getenv().getOrDefault("VERIFICATION_JOB_HISTORY", "20"));
+    private final ExecutorService runner = Executors.newFixedThreadPool(
+            Integer.parseInt(System.getenv().getOrDefault("VERIFICATION_JOB_RUNNERS", "2")));
+
+    // Insertion-ordered so the oldest finished job is evicted first
+    private final Map<String, VerificationJob> jobs = new LinkedHashMap<>();
+
+    // Directories jobs may verify, defaulting to the service's libs dir
+    private final List<Path> roots = new ArrayList<>();
+
+    public VerificationJobService(ChainctlService chainctlService) {
+        this.chainctlService = chainctlService;
+        for (String root : System.getenv().getOrDefault("VERIFICATION_JOB_ROOTS", chainctlService.getLibsDir()).split(",")) {
+            if (!root.isBlank()) {
+                roots.add(Paths.get(root.trim()).toAbsolutePath().normalize());
+            }
+        }
+    }
+
+    /**
+     * Queue a verification job. Blank arguments fall back to the service defaults.
+     *
+     * @throws IllegalArgumentException if the libs dir is outside the configured roots
+     * @throws IllegalStateException if the history is full of jobs that are queued or running
+     */
+    public VerificationJob submit(String name, String libsDir, String parentOrg) {
+        String dir = libsDir == null || libsDir.isEmpty() ? chainctlService.getLibsDir() : libsDir;
+        Path dirPath = Paths.get(dir).toAbsolutePath().normalize();
+        if (roots.stream().noneMatch(dirPath::startsWith)) {
+            throw new IllegalArgumentException("libsDir must be under one of " + roots);
+        }
+        String org = parentOrg == null || parentOrg.isEmpty() ? chainctlService.getParentOrg() : parentOrg;
+        String id = UUID.randomUUID().toString().substring(0, 8);
+
+        VerificationJob job = new VerificationJob(id, name != null ? name : id, dir, org);
+        job.setSubmittedAt(Instant.now().toString());
+
+        synchronized (jobs) {
+            evictFinishedJobs();
+            // Unfinished jobs are never evicted, so this bounds both the history and the runner's queue
+            if (jobs.values().stream().filter(queuedJob -> !isFinished(queuedJob)).count() >= maxJobs) {
+                throw new IllegalStateException("Too many verification jobs queued or running (" + maxJobs + ")");
+            }
+            jobs.put(id, job);
+            evictFinishedJobs();
+        }
+
+        runner.submit(() -> run(job));
+        log.info("Queued verification job {} ({}) for {}", id, job.getName(), dir);
+        return job;
+    }
+
+    public VerificationJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    public List<VerificationJob> listJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    private void run(VerificationJob job) {
+        job.setStatus("running");
+        try {
+            VerificationResult result = chainctlService.runVerification(job.getLibsDir(), job.getParentOrg(),
+                    new VerificationListener() {
+                        @Override
+                        public void onStart(int total) {
+                            job.setTotal(total);
+                        }
+
+                        @Override
+                        public void onPackage(PackageInfo pkg, int completed, int total) {
+                            job.addPackage(pkg, completed);
+                        }
+                    });
+            job.setResult(result);
+            if (result.getError() != null) {
+                job.setError(result.getError());
+                job.setStatus("failed");
+            } else {
+                job.setStatus("complete");
+            }
+        } catch (Exception e) {
+            log.error("Verification job {} failed: {}", job.getId(), e.getMessage());
+            job.setError(e.getMessage());
+            job.setStatus("failed");
+        } finally {
+            job.setFinishedAt(Instant.now().toString());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Iterator<VerificationJob> it = jobs.values().iterator();
+        while (jobs.size() > maxJobs && it.hasNext()) {
+            if (isFinished(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    private static boolean isFinished(VerificationJob job) {
+        String status = job.getStatus();
+        return "complete".equals(status) || "failed".equals(status);
+    }
+}
@@ -0,0 +1,25 @@
+package com.chainguard.demo.service;
+
+import com.chainguard.demo.model.PackageInfo;
+import com.chainguard.demo.model.VerificationResult;
+
+/**
+ * Receives verification progress as individual JARs finish
+ */
+public interface VerificationListener {
+
+    /**
+     * Called once the JARs to verify are known
+     */
+    default void onStart(int total) {}
+
+    /**
+     * Called for each verified package, with the number of JARs completed so far
+     */
+    default void onPackage(PackageInfo pkg, int completed, int total) {}
+
+    /**
+     * Called when the run has finished, successfully or not
+     */
+    default void onComplete(VerificationResult result) {}
+}
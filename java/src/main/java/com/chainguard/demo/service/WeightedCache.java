@@ -0,0 +1,101 @@
+package com.chainguard.demo.service;
+
+import com.chainguard.demo.model.CacheStats;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * LRU cache bounded by the total weight of its values (usually estimated heap bytes) rather
+ * than by entry count, so a few very large values cannot crowd out the heap. Values are
+ * computed by the caller outside the lock.
+ */
+class WeightedCache<K, V> {
+    private final long maxWeight;
+    private final LinkedHashMap<K, Weighted<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    WeightedCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Cached value, or null if missing or no longer valid. Invalid values are dropped.
+     */
+    synchronized V get(K key, Predicate<V> valid) {
+        Weighted<V> cached = entries.get(key);
+        if (cached != null && valid.test(cached.value)) {
+            hits++;
+            return cached.value;
+        }
+        if (cached != null) {
+            remove(key);
+            invalidations++;
+        }
+        misses++;
+        return null;
+    }
+
+    synchronized void put(K key, V value, long valueWeight) {
+        Weighted<V> replaced = entries.put(key, new Weighted<>(value, valueWeight));
+        if (replaced != null) {
+            weight -= replaced.weight;
+        }
+        weight += valueWeight;
+
+        Iterator<Weighted<V>> eldest = entries.values().iterator();
+        // Always keep the newest value, even if it alone is over budget
+        while (weight > maxWeight && entries.size() > 1) {
+            Weighted<V> evicted = eldest.next();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Drop every value whose key is not in the given set
+     */
+    synchronized void retainKeys(Collection<K> keys) {
+        Set<K> keep = new HashSet<>(keys);
+        for (K key : new ArrayList<>(entries.keySet())) {
+            if (!keep.contains(key)) {
+                remove(key);
+                invalidations++;
+            }
+        }
+    }
+
+    synchronized CacheStats stats() {
+        CacheStats stats = new CacheStats();
+        stats.setHits(hits);
+        stats.setMisses(misses);
+        stats.setEvictions(evictions);
+        stats.setInvalidations(invalidations);
+        stats.setEntries(entries.size());
+        stats.setWeight(weight);
+        stats.setMaxWeight(maxWeight);
+        return stats;
+    }
+
+    private void remove(K key) {
+        Weighted<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private static class Weighted<V> {
+        final V value;
+        final long weight;
+
+        Weighted(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}